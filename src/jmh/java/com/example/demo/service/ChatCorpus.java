@@ -0,0 +1,85 @@
+package com.example.demo.service;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Realistic chat messages and pre-wired services shared by the benchmarks.
+ */
+final class ChatCorpus {
+
+    static final String SHORT = "I feel sad today";
+
+    static final String MEDIUM = "Can you recommend some happy songs for a road trip with my friends this weekend? "
+            + "We love pop and a bit of old school rock.";
+
+    static final String LONG = "Honestly I've been really stressed with exams and I can't sleep well. My parents keep "
+            + "asking about grades and I feel overwhelmed, like nothing I do is good enough. Yesterday I missed the "
+            + "bus, my manager at the part-time job was upset about a shift, and I ended up crying in the library. "
+            + "A friend called later and we talked for an hour, which made me feel a bit better, but I'm still "
+            + "anxious about tomorrow. Any advice on how to calm down before the test?";
+
+    static final String ASSISTANT_REPLY = "I hear you, and I'm here for you. 💙 That sounds like a lot to carry at "
+            + "once. Try a slow 4-7-8 breath: in for 4, hold for 7, out for 8, four times. Then pick just one small "
+            + "thing to prepare tonight and let the rest wait. Want a short calming playlist too?";
+
+    private ChatCorpus() {
+    }
+
+    static String message(String size) {
+        return switch (size) {
+            case "SHORT" -> SHORT;
+            case "MEDIUM" -> MEDIUM;
+            default -> LONG;
+        };
+    }
+
+    static List<ConversationStore.Turn> history(int turns) {
+        ConversationStore.Turn[] history = new ConversationStore.Turn[turns];
+        for (int i = 0; i < turns; i++) {
+            history[i] = new ConversationStore.Turn(i % 2 == 0 ? MEDIUM : LONG, ASSISTANT_REPLY);
+        }
+        return Arrays.asList(history);
+    }
+
+    static Properties applicationProperties() {
+        Properties properties = new Properties();
+        try (InputStream in = ChatCorpus.class.getResourceAsStream("/application.properties")) {
+            properties.load(in);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return properties;
+    }
+
+    static SentimentEngine sentimentEngine() {
+        Properties properties = applicationProperties();
+        SentimentEngine engine = new SentimentEngine();
+        ReflectionTestUtils.setField(engine, "positiveTerms", terms(properties, "sentiment.lexicon.positive"));
+        ReflectionTestUtils.setField(engine, "negativeTerms", terms(properties, "sentiment.lexicon.negative"));
+        ReflectionTestUtils.setField(engine, "negationTerms", terms(properties, "sentiment.lexicon.negations"));
+        ReflectionTestUtils.setField(engine, "negationWindow",
+                Integer.parseInt(properties.getProperty("sentiment.negation-window", "3")));
+        engine.compile();
+        return engine;
+    }
+
+    static PromptAssembler promptAssembler() {
+        PromptAssembler assembler = new PromptAssembler();
+        ReflectionTestUtils.setField(assembler, "tokenBudget",
+                Integer.parseInt(applicationProperties().getProperty("chat.prompt.token-budget", "1500")));
+        assembler.compile();
+        return assembler;
+    }
+
+    private static List<String> terms(Properties properties, String key) {
+        return Arrays.stream(properties.getProperty(key).split(","))
+                .map(String::trim)
+                .toList();
+    }
+}
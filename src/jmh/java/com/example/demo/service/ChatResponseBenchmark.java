@@ -0,0 +1,66 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ApiResponse;
+import com.example.demo.dto.ChatResponse;
+import com.example.demo.model.Chat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChatResponseBenchmark {
+
+    @Param({"100", "1000", "5000"})
+    private int historySize;
+
+    private ChatService chatService;
+    private ObjectMapper objectMapper;
+    private List<Chat> chats;
+    private ApiResponse<List<ChatResponse>> history;
+
+    @Setup
+    public void setUp() {
+        chatService = new ChatService(null, null, null, null, null, null, null, null, null, null);
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        chats = new ArrayList<>(historySize);
+        List<ChatResponse> responses = new ArrayList<>(historySize);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 0);
+        for (int i = 0; i < historySize; i++) {
+            Chat chat = new Chat();
+            chat.setId((long) i);
+            chat.setMessage(ChatCorpus.message(i % 3 == 0 ? "LONG" : "MEDIUM"));
+            chat.setResponse(ChatCorpus.ASSISTANT_REPLY);
+            chat.setSentiment(i % 2 == 0 ? SentimentEngine.NEGATIVE : SentimentEngine.POSITIVE);
+            chat.setMoodScore(0.42);
+            chat.setCreatedAt(start.plusMinutes(i));
+            chats.add(chat);
+            responses.add(chatService.mapToChatResponse(chat));
+        }
+        history = ApiResponse.success(responses);
+    }
+
+    @Benchmark
+    public List<ChatResponse> mapHistory() {
+        List<ChatResponse> responses = new ArrayList<>(chats.size());
+        for (Chat chat : chats) {
+            responses.add(chatService.mapToChatResponse(chat));
+        }
+        return responses;
+    }
+
+    @Benchmark
+    public byte[] serializeHistory() throws Exception {
+        return objectMapper.writeValueAsBytes(history);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.demo.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    private JwtService jwtService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secret", "benchmark-secret-benchmark-secret-benchmark-secret-0123456789");
+        ReflectionTestUtils.setField(jwtService, "expiration", 86_400_000L);
+        ReflectionTestUtils.setField(jwtService, "verifiedCacheMaxEntries", 10_000L);
+        jwtService.init();
+        token = jwtService.generateToken("student@example.com", "USER");
+    }
+
+    /**
+     * What JwtAuthFilter does for every authenticated request.
+     */
+    @Benchmark
+    public Optional<JwtPrincipal> verify() {
+        return jwtService.verify(token);
+    }
+
+    /**
+     * The former filter sequence, now three lookups of the same verified entry.
+     */
+    @Benchmark
+    public void legacyFilterPath(Blackhole blackhole) {
+        blackhole.consume(jwtService.validateToken(token));
+        blackhole.consume(jwtService.extractEmail(token));
+        blackhole.consume(jwtService.extractRole(token));
+    }
+}
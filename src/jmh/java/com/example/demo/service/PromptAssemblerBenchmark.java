@@ -0,0 +1,36 @@
+package com.example.demo.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PromptAssemblerBenchmark {
+
+    @Param({"0", "5"})
+    private int historyTurns;
+
+    @Param({"supportive", ""})
+    private String mode;
+
+    private PromptAssembler assembler;
+    private List<ConversationStore.Turn> history;
+
+    @Setup
+    public void setUp() {
+        assembler = ChatCorpus.promptAssembler();
+        history = ChatCorpus.history(historyTurns);
+    }
+
+    @Benchmark
+    public List<Map<String, String>> assemble() {
+        return assembler.assemble(ChatCorpus.MEDIUM, SentimentEngine.NEGATIVE, mode, null, history);
+    }
+}
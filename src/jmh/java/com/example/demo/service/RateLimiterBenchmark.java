@@ -0,0 +1,63 @@
+package com.example.demo.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+    private static final int CLIENTS = 10_000;
+
+    private RateLimiter rateLimiter;
+    private String[] clientAddresses;
+
+    @Setup
+    public void setUp() {
+        rateLimiter = new RateLimiter();
+        // Limits high enough that every call takes the allow path
+        ReflectionTestUtils.setField(rateLimiter, "anonymousPerMinute", Integer.MAX_VALUE);
+        ReflectionTestUtils.setField(rateLimiter, "anonymousBurst", 1_000_000);
+        ReflectionTestUtils.setField(rateLimiter, "authenticatedPerMinute", Integer.MAX_VALUE);
+        ReflectionTestUtils.setField(rateLimiter, "authenticatedBurst", 1_000_000);
+        ReflectionTestUtils.setField(rateLimiter, "idleExpiryMinutes", 10L);
+        ReflectionTestUtils.setField(rateLimiter, "maxKeys", 100_000L);
+        rateLimiter.init();
+
+        clientAddresses = new String[CLIENTS];
+        for (int i = 0; i < CLIENTS; i++) {
+            clientAddresses[i] = "10.0." + (i / 256) + "." + (i % 256);
+            rateLimiter.tryAcquireForClient(clientAddresses[i]);
+        }
+    }
+
+    /**
+     * One authenticated user hammering the limiter from every thread: worst-case CAS contention.
+     */
+    @Benchmark
+    @Threads(4)
+    public long sameUserContended() {
+        return rateLimiter.tryAcquireForUser(42L);
+    }
+
+    /**
+     * The usual shape of anonymous traffic: many distinct clients, one request each.
+     */
+    @Benchmark
+    @Threads(4)
+    public long manyClients() {
+        return rateLimiter.tryAcquireForClient(clientAddresses[ThreadLocalRandom.current().nextInt(CLIENTS)]);
+    }
+
+    @Benchmark
+    public long singleThread() {
+        return rateLimiter.tryAcquireForUser(42L);
+    }
+}
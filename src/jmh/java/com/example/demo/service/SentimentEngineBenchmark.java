@@ -0,0 +1,31 @@
+package com.example.demo.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SentimentEngineBenchmark {
+
+    @Param({"SHORT", "MEDIUM", "LONG"})
+    private String size;
+
+    private SentimentEngine engine;
+    private String message;
+
+    @Setup
+    public void setUp() {
+        engine = ChatCorpus.sentimentEngine();
+        message = ChatCorpus.message(size);
+    }
+
+    @Benchmark
+    public SentimentEngine.SentimentResult analyze() {
+        return engine.analyze(message);
+    }
+}
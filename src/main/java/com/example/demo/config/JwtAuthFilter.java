@@ -1,6 +1,13 @@
 package com.example.demo.config;
 
+import com.example.demo.service.AuthenticatedUser;
+import com.example.demo.service.JwtPrincipal;
 import com.example.demo.service.JwtService;
+import com.example.demo.service.PipelineEvents;
+import com.example.demo.service.UserIdentityCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -16,6 +23,8 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @Component
 @RequiredArgsConstructor
@@ -23,6 +32,18 @@ import java.util.Collections;
 public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
+    private final UserIdentityCache userIdentityCache;
+    private final MeterRegistry meterRegistry;
+
+    // auth.jwt.filter by outcome; requests without a bearer token are not timed
+    private Timer authenticatedTimer;
+    private Timer rejectedTimer;
+
+    @PostConstruct
+    void init() {
+        authenticatedTimer = filterTimer("authenticated");
+        rejectedTimer = filterTimer("rejected");
+    }
 
     @Override
     protected void doFilterInternal(
@@ -32,8 +53,6 @@ public class JwtAuthFilter extends OncePerRequestFilter {
             @NonNull FilterChain filterChain
     ) throws ServletException, IOException {
 
-        log.debug("JwtAuthFilter HIT for: {}", request.getRequestURI());
-
         // Get Authorization header
         String authHeader = request.getHeader("Authorization");
 
@@ -45,14 +64,17 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
         // Extract token
         String token = authHeader.substring(7);
+        long startNanos = System.nanoTime();
+        boolean authenticated = false;
+        PipelineEvents.JwtFilterEvent event = new PipelineEvents.JwtFilterEvent();
+        event.begin();
 
         try {
-            // Validate token
-            if (jwtService.validateToken(token)) {
+            // Verify token once, then resolve the user through the identity cache
+            Optional<AuthenticatedUser> user = jwtService.verify(token).flatMap(this::resolveUser);
+            if (user.isPresent()) {
 
-                // Extract details
-                String email = jwtService.extractEmail(token);
-                String role = jwtService.extractRole(token);
+                String role = user.get().role();
 
                 // Ensure ROLE_ prefix (Spring Security requirement)
                 String authority = role.startsWith("ROLE_")
@@ -62,7 +84,7 @@ public class JwtAuthFilter extends OncePerRequestFilter {
                 // Create authentication object
                 UsernamePasswordAuthenticationToken authentication =
                         new UsernamePasswordAuthenticationToken(
-                                email,
+                                user.get(),
                                 null,
                                 Collections.singletonList(
                                         new SimpleGrantedAuthority(authority)
@@ -71,13 +93,47 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
                 // Set authentication in context
                 SecurityContextHolder.getContext().setAuthentication(authentication);
+                authenticated = true;
             }
         } catch (Exception e) {
             // Invalid token - clear context and continue
             SecurityContextHolder.clearContext();
             logger.error("JWT Authentication failed: " + e.getMessage(), e);
         }
+        (authenticated ? authenticatedTimer : rejectedTimer).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        if (event.shouldCommit()) {
+            event.requestId = PipelineEvents.currentRequestId();
+            event.tokenLength = token.length();
+            event.authenticated = authenticated;
+            event.commit();
+        }
 
         filterChain.doFilter(request, response);
     }
+
+    private Timer filterTimer(String outcome) {
+        return Timer.builder("auth.jwt.filter")
+                .description("Bearer token verification and user resolution")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private Optional<AuthenticatedUser> resolveUser(JwtPrincipal principal) {
+        PipelineEvents.UserResolutionEvent event = new PipelineEvents.UserResolutionEvent();
+        event.begin();
+
+        // Tokens issued before the uid claim existed are resolved by email
+        Optional<AuthenticatedUser> user = principal.userId() != null
+                ? userIdentityCache.findById(principal.userId())
+                : userIdentityCache.findByEmail(principal.email());
+
+        if (event.shouldCommit()) {
+            event.requestId = PipelineEvents.currentRequestId();
+            event.byEmail = principal.userId() == null;
+            event.found = user.isPresent();
+            event.userId = user.map(AuthenticatedUser::id).orElse(0L);
+            event.commit();
+        }
+        return user;
+    }
 }
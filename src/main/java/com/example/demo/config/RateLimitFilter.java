@@ -0,0 +1,87 @@
+package com.example.demo.config;
+
+import com.example.demo.service.AuthenticatedUser;
+import com.example.demo.service.RateLimiter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throttles the chat endpoints that call Groq. Runs right after {@link JwtAuthFilter} so
+ * authenticated users are limited by id and everyone else by client address, and answers
+ * 429 before any sentiment analysis or upstream work is done. Client addresses are only
+ * charged on the anonymous endpoints: an unauthenticated call to an authenticated-only
+ * endpoint passes through untouched and is rejected with 401 by authorization, without
+ * spending the tokens of others behind the same address.
+ */
+@Component
+@RequiredArgsConstructor
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Set<String> AUTHENTICATED_PATHS = Set.of(
+            "/api/chat/send",
+            "/api/chat/send/stream"
+    );
+
+    private static final Set<String> ANONYMOUS_PATHS = Set.of(
+            "/api/chat/anonymous",
+            "/api/chat/anonymous/stream"
+    );
+
+    private static final String TOO_MANY_REQUESTS_BODY =
+            "{\"success\":false,\"message\":\"Too many requests, please slow down\",\"data\":null}";
+
+    private final RateLimiter rateLimiter;
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod())
+                || !(AUTHENTICATED_PATHS.contains(request.getServletPath())
+                        || ANONYMOUS_PATHS.contains(request.getServletPath()));
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        long waitNanos;
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user) {
+            waitNanos = rateLimiter.tryAcquireForUser(user.id());
+        } else if (ANONYMOUS_PATHS.contains(request.getServletPath())) {
+            waitNanos = rateLimiter.tryAcquireForClient(request.getRemoteAddr());
+        } else {
+            // Authorization answers 401 further down the chain
+            waitNanos = 0;
+        }
+
+        if (waitNanos == 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write(TOO_MANY_REQUESTS_BODY);
+    }
+}
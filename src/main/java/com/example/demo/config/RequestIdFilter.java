@@ -0,0 +1,61 @@
+package com.example.demo.config;
+
+import com.example.demo.service.PipelineEvents;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Gives every request an id, taken from a well-formed {@code X-Request-Id} header or
+ * generated, and exposes it in the MDC, as a request attribute and on the response. Runs
+ * ahead of the security chain and again on async dispatches, so log lines and JFR events
+ * from both halves of an async request carry the same id.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestIdFilter extends OncePerRequestFilter {
+
+    private static final String HEADER = "X-Request-Id";
+    private static final Pattern VALID_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        String requestId = (String) request.getAttribute(PipelineEvents.REQUEST_ID);
+        if (requestId == null) {
+            String supplied = request.getHeader(HEADER);
+            requestId = supplied != null && VALID_ID.matcher(supplied).matches()
+                    ? supplied
+                    : Long.toHexString(ThreadLocalRandom.current().nextLong());
+            request.setAttribute(PipelineEvents.REQUEST_ID, requestId);
+            response.setHeader(HEADER, requestId);
+        }
+
+        MDC.put(PipelineEvents.REQUEST_ID, requestId);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(PipelineEvents.REQUEST_ID);
+        }
+    }
+}
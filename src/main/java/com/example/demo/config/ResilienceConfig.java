@@ -0,0 +1,53 @@
+package com.example.demo.config;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+
+@Configuration
+public class ResilienceConfig {
+
+    @Bean
+    public CircuitBreakerRegistry circuitBreakerRegistry(MeterRegistry meterRegistry) {
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.ofDefaults();
+        // Publishes state, call counts and failure rates of every breaker as resilience4j.circuitbreaker.*
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+        return registry;
+    }
+
+    @Bean
+    public CircuitBreaker groqCircuitBreaker(
+            CircuitBreakerRegistry registry,
+            @Value("${groq.circuit-breaker.failure-rate-threshold:50}") float failureRateThreshold,
+            @Value("${groq.circuit-breaker.slow-call-rate-threshold:80}") float slowCallRateThreshold,
+            @Value("${groq.circuit-breaker.slow-call-duration-ms:8000}") long slowCallDurationMs,
+            @Value("${groq.circuit-breaker.sliding-window-seconds:60}") int slidingWindowSeconds,
+            @Value("${groq.circuit-breaker.minimum-number-of-calls:10}") int minimumNumberOfCalls,
+            @Value("${groq.circuit-breaker.wait-in-open-state-ms:30000}") long waitInOpenStateMs,
+            @Value("${groq.circuit-breaker.permitted-calls-in-half-open-state:3}") int permittedCallsInHalfOpenState) {
+
+        CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.TIME_BASED)
+                .slidingWindowSize(slidingWindowSeconds)
+                .minimumNumberOfCalls(minimumNumberOfCalls)
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallRateThreshold(slowCallRateThreshold)
+                .slowCallDurationThreshold(Duration.ofMillis(slowCallDurationMs))
+                .waitDurationInOpenState(Duration.ofMillis(waitInOpenStateMs))
+                .permittedNumberOfCallsInHalfOpenState(permittedCallsInHalfOpenState)
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                // A client hanging up mid-stream says nothing about Groq's health
+                .ignoreExceptions(UncheckedIOException.class)
+                .build();
+
+        return registry.circuitBreaker("groq", config);
+    }
+}
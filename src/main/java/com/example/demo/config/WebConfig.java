@@ -0,0 +1,55 @@
+package com.example.demo.config;
+
+import com.example.demo.service.PipelineEvents;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // Same Jackson setup, plus a JFR event around writing each JSON response body
+        converters.replaceAll(converter -> converter instanceof MappingJackson2HttpMessageConverter jackson
+                ? new ProfiledJacksonConverter(jackson.getObjectMapper())
+                : converter);
+    }
+
+    static class ProfiledJacksonConverter extends MappingJackson2HttpMessageConverter {
+
+        ProfiledJacksonConverter(ObjectMapper objectMapper) {
+            super(objectMapper);
+        }
+
+        @Override
+        protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+                throws IOException, HttpMessageNotWritableException {
+            // SSE events written from upstream threads carry no request id; ChatService
+            // records those stream writes itself
+            String requestId = PipelineEvents.currentRequestId();
+            if (requestId == null) {
+                super.writeInternal(object, type, outputMessage);
+                return;
+            }
+
+            PipelineEvents.SerializationEvent event = new PipelineEvents.SerializationEvent();
+            event.begin();
+            super.writeInternal(object, type, outputMessage);
+            if (event.shouldCommit()) {
+                event.requestId = requestId;
+                event.kind = "json";
+                event.payloadType = object.getClass().getSimpleName();
+                event.commit();
+            }
+        }
+    }
+}
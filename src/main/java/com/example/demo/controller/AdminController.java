@@ -1,13 +1,25 @@
 package com.example.demo.controller;
 
 import com.example.demo.dto.ApiResponse;
-import com.example.demo.model.Chat;
-import com.example.demo.model.User;
+import com.example.demo.dto.MoodTimelineBucket;
+import com.example.demo.dto.PagedResponse;
+import com.example.demo.dto.UserPurgeStatus;
+import com.example.demo.repository.AdminChatRow;
+import com.example.demo.repository.AdminUserRow;
+import com.example.demo.repository.ChatFilter;
 import com.example.demo.service.AdminService;
+import com.example.demo.service.ChatExportService;
+import com.example.demo.service.MoodTimelineService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -17,30 +29,91 @@ import java.util.Map;
 public class AdminController {
 
     private final AdminService adminService;
+    private final ChatExportService chatExportService;
 
+    // Capped at admin.list.max-rows; use /users/page and /chats/page for everything else
     @GetMapping("/users")
-    public ResponseEntity<ApiResponse<List<User>>> getAllUsers() {
-        List<User> users = adminService.getAllUsers();
+    public ResponseEntity<ApiResponse<List<AdminUserRow>>> getAllUsers() {
+        List<AdminUserRow> users = adminService.getAllUsers();
         return ResponseEntity.ok(ApiResponse.success(users));
     }
 
     @GetMapping("/chats")
-    public ResponseEntity<ApiResponse<List<Chat>>> getAllChats() {
-        List<Chat> chats = adminService.getAllChats();
+    public ResponseEntity<ApiResponse<List<AdminChatRow>>> getAllChats() {
+        List<AdminChatRow> chats = adminService.getAllChats();
         return ResponseEntity.ok(ApiResponse.success(chats));
     }
 
+    @GetMapping("/users/page")
+    public ResponseEntity<ApiResponse<PagedResponse<AdminUserRow>>> getUsersPage(
+            @RequestParam(required = false) String email,
+            @RequestParam(required = false) String role,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(ApiResponse.success(adminService.getUsersPage(email, role, page, size)));
+    }
+
+    @GetMapping("/chats/page")
+    public ResponseEntity<ApiResponse<PagedResponse<AdminChatRow>>> getChatsPage(
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) String sentiment,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        ChatFilter filter = new ChatFilter(userId, sentiment, from, to);
+        return ResponseEntity.ok(ApiResponse.success(adminService.getChatsPage(filter, page, size)));
+    }
+
+    /**
+     * Full chat export as NDJSON (default) or CSV, written row by row from a database
+     * cursor with the same filters as the chat listing.
+     */
+    @GetMapping("/export/chats")
+    public ResponseEntity<StreamingResponseBody> exportChats(
+            @RequestParam(defaultValue = ChatExportService.NDJSON) String format,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) String sentiment,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        ChatFilter filter = new ChatFilter(userId, sentiment, from, to);
+        boolean csv = ChatExportService.CSV.equalsIgnoreCase(format);
+
+        StreamingResponseBody body = out -> chatExportService.export(
+                filter, csv ? ChatExportService.CSV : ChatExportService.NDJSON, out);
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv") : new MediaType("application", "x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"chats." + (csv ? "csv" : "ndjson") + "\"")
+                .body(body);
+    }
+
+    // Deletion runs in the background; poll /purges/{jobId} for progress
     @DeleteMapping("/users/{userId}")
-    public ResponseEntity<ApiResponse<Void>> deleteUser(@PathVariable Long userId) {
+    public ResponseEntity<ApiResponse<UserPurgeStatus>> deleteUser(@PathVariable Long userId) {
         try {
-            adminService.deleteUser(userId);
-            return ResponseEntity.ok(ApiResponse.success(null));
+            return ResponseEntity.accepted().body(ApiResponse.success(adminService.deleteUser(userId)));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                     .body(ApiResponse.error(e.getMessage()));
         }
     }
 
+    @GetMapping("/purges")
+    public ResponseEntity<ApiResponse<List<UserPurgeStatus>>> getUserPurges() {
+        return ResponseEntity.ok(ApiResponse.success(adminService.getUserPurges()));
+    }
+
+    @GetMapping("/purges/{jobId}")
+    public ResponseEntity<ApiResponse<UserPurgeStatus>> getUserPurge(@PathVariable String jobId) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success(adminService.getUserPurge(jobId)));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
     @DeleteMapping("/chats/{chatId}")
     public ResponseEntity<ApiResponse<Void>> deleteChat(@PathVariable Long chatId) {
         try {
@@ -58,9 +131,70 @@ public class AdminController {
         return ResponseEntity.ok(ApiResponse.success(analytics));
     }
 
+    @GetMapping("/analytics/daily")
+    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> getDailyActivity(
+            @RequestParam(defaultValue = "30") int days) {
+        return ResponseEntity.ok(ApiResponse.success(adminService.getDailyActivity(days)));
+    }
+
     @GetMapping("/analytics/user/{userId}")
     public ResponseEntity<ApiResponse<Map<String, Object>>> getUserAnalytics(@PathVariable Long userId) {
         Map<String, Object> analytics = adminService.getUserAnalytics(userId);
         return ResponseEntity.ok(ApiResponse.success(analytics));
     }
-}
\ No newline at end of file
+
+    @GetMapping("/analytics/user/{userId}/timeline")
+    public ResponseEntity<ApiResponse<List<MoodTimelineBucket>>> getUserMoodTimeline(
+            @PathVariable Long userId,
+            @RequestParam(defaultValue = MoodTimelineService.DAY) String granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success(
+                    adminService.getUserMoodTimeline(userId, granularity, from, to)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/stats/db-pool")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getDbPoolStats() {
+        return ResponseEntity.ok(ApiResponse.success(adminService.getDbPoolStats()));
+    }
+
+    @GetMapping("/stats/conversations")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getConversationStats() {
+        return ResponseEntity.ok(ApiResponse.success(adminService.getConversationStats()));
+    }
+
+    @GetMapping("/stats/response-cache")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getResponseCacheStats() {
+        return ResponseEntity.ok(ApiResponse.success(adminService.getResponseCacheStats()));
+    }
+
+    @GetMapping("/stats/coalescing")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getCoalescingStats() {
+        return ResponseEntity.ok(ApiResponse.success(adminService.getCoalescingStats()));
+    }
+
+    @GetMapping("/stats/circuit-breaker")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getCircuitBreakerStats() {
+        return ResponseEntity.ok(ApiResponse.success(adminService.getCircuitBreakerStats()));
+    }
+
+    @GetMapping("/stats/password-hasher")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getPasswordHasherStats() {
+        return ResponseEntity.ok(ApiResponse.success(adminService.getPasswordHasherStats()));
+    }
+
+    @GetMapping("/stats/rate-limit")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getRateLimitStats() {
+        return ResponseEntity.ok(ApiResponse.success(adminService.getRateLimitStats()));
+    }
+
+    @GetMapping("/stats/chat-partitions")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getChatPartitionStats() {
+        return ResponseEntity.ok(ApiResponse.success(adminService.getChatPartitionStats()));
+    }
+}
@@ -1,82 +1,68 @@
 package com.example.demo.controller;
 
 import com.example.demo.dto.*;
-import com.example.demo.model.User;
-import com.example.demo.repository.UserRepository;
 import com.example.demo.service.AuthService;
-import com.example.demo.service.JwtService;
+import com.example.demo.service.PasswordHasher;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
 @RestController
 @RequestMapping("/api/auth")
 @RequiredArgsConstructor
 public class AuthController {
 
+    // Seconds a client should back off when the password hasher is saturated
+    private static final String SATURATED_RETRY_AFTER = "1";
+
     private final AuthService authService;
-    private final UserRepository userRepository;  // Add this
-    private final BCryptPasswordEncoder passwordEncoder;  // Add this
-    private final JwtService jwtService;
 
     @PostMapping("/register")
-    public ResponseEntity<ApiResponse<AuthResponse>> register(@Valid @RequestBody RegisterRequest request) {
-        try {
-            AuthResponse response = authService.register(request);
-            return ResponseEntity.ok(ApiResponse.success(response));
-        } catch (Exception e) {
-            return ResponseEntity.badRequest()
-                    .body(ApiResponse.error(e.getMessage()));
-        }
+    public CompletableFuture<ResponseEntity<ApiResponse<AuthResponse>>> register(
+            @Valid @RequestBody RegisterRequest request) {
+        return respond(() -> authService.register(request));
     }
 
     @PostMapping("/register-admin")
-    public ResponseEntity<ApiResponse<AuthResponse>> registerAdmin(@Valid @RequestBody RegisterRequest request) {
-        try {
-            // Check if email already exists
-            if (userRepository.existsByEmail(request.getEmail())) {
-                return ResponseEntity.badRequest()
-                        .body(ApiResponse.error("Email already exists"));
-            }
-
-            // Create admin user
-            User admin = new User();
-            admin.setEmail(request.getEmail());
-            admin.setPassword(passwordEncoder.encode(request.getPassword()));
-            admin.setFullName(request.getFullName());
-            admin.setRole(User.Role.ADMIN); // Set as ADMIN
-
-            User savedAdmin = userRepository.save(admin);
-
-            // Generate JWT token with ADMIN role
-            String token = jwtService.generateToken(savedAdmin.getEmail(), savedAdmin.getRole().name());
+    public CompletableFuture<ResponseEntity<ApiResponse<AuthResponse>>> registerAdmin(
+            @Valid @RequestBody RegisterRequest request) {
+        return respond(() -> authService.registerAdmin(request));
+    }
 
-            // Return response
-            AuthResponse response = AuthResponse.builder()
-                    .token(token)
-                    .email(savedAdmin.getEmail())
-                    .fullName(savedAdmin.getFullName())
-                    .role(savedAdmin.getRole().name())
-                    .message("Admin registration successful")
-                    .build();
+    @PostMapping("/login")
+    public CompletableFuture<ResponseEntity<ApiResponse<AuthResponse>>> login(
+            @Valid @RequestBody LoginRequest request) {
+        return respond(() -> authService.login(request));
+    }
 
-            return ResponseEntity.ok(ApiResponse.success(response));
+    private static CompletableFuture<ResponseEntity<ApiResponse<AuthResponse>>> respond(
+            Supplier<CompletableFuture<AuthResponse>> call) {
+        try {
+            return call.get()
+                    .thenApply(response -> ResponseEntity.ok(ApiResponse.success(response)))
+                    .exceptionally(AuthController::failure);
         } catch (Exception e) {
-            return ResponseEntity.badRequest()
-                    .body(ApiResponse.error(e.getMessage()));
+            return CompletableFuture.completedFuture(failure(e));
         }
     }
 
-    @PostMapping("/login")
-    public ResponseEntity<ApiResponse<AuthResponse>> login(@Valid @RequestBody LoginRequest request) {
-        try {
-            AuthResponse response = authService.login(request);
-            return ResponseEntity.ok(ApiResponse.success(response));
-        } catch (Exception e) {
-            return ResponseEntity.badRequest()
-                    .body(ApiResponse.error(e.getMessage()));
+    private static ResponseEntity<ApiResponse<AuthResponse>> failure(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause()
+                : error;
+        if (cause instanceof PasswordHasher.HasherSaturatedException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, SATURATED_RETRY_AFTER)
+                    .body(ApiResponse.error(cause.getMessage()));
         }
+        return ResponseEntity.badRequest()
+                .body(ApiResponse.error(cause.getMessage()));
     }
-}
\ No newline at end of file
+}
@@ -1,64 +1,145 @@
 package com.example.demo.controller;
 
 import com.example.demo.dto.ApiResponse;
+import com.example.demo.dto.ChatHistoryPage;
 import com.example.demo.dto.ChatRequest;
 import com.example.demo.dto.ChatResponse;
-import com.example.demo.model.User;
-import com.example.demo.repository.UserRepository;
+import com.example.demo.dto.ChatSearchHit;
+import com.example.demo.dto.MoodTimelineBucket;
+import com.example.demo.dto.PagedResponse;
+import com.example.demo.service.AuthenticatedUser;
+import com.example.demo.service.ChatSearchService;
 import com.example.demo.service.ChatService;
+import com.example.demo.service.MoodTimelineService;
 import com.example.demo.service.OpenAIService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/chat")
 @RequiredArgsConstructor
 public class ChatController {
 
+    private static final long STREAM_TIMEOUT_MS = 120_000L;
+
     private final ChatService chatService;
     private final OpenAIService openAIService;
-    private final UserRepository userRepository;  // Add this line
+    private final MoodTimelineService moodTimelineService;
+    private final ChatSearchService chatSearchService;
 
     @PostMapping("/send")
-    public ResponseEntity<ApiResponse<ChatResponse>> sendMessage(
+    public CompletableFuture<ResponseEntity<ApiResponse<ChatResponse>>> sendMessage(
             @Valid @RequestBody ChatRequest request,
             Authentication authentication) {
 
         if (authentication == null) {
-            return ResponseEntity.status(401)
-                    .body(ApiResponse.error("Unauthorized"));
+            return CompletableFuture.completedFuture(ResponseEntity.status(401)
+                    .body(ApiResponse.error("Unauthorized")));
         }
 
-        String email = authentication.getName();
-        ChatResponse response = chatService.sendMessage(request, email);
-        return ResponseEntity.ok(ApiResponse.success(response));
+        return chatService.sendMessage(request, currentUser(authentication).id())
+                .thenApply(response -> ResponseEntity.ok(ApiResponse.success(response)));
     }
 
 
     @PostMapping("/anonymous")
-    public ResponseEntity<ApiResponse<ChatResponse>> sendAnonymousMessage(
+    public CompletableFuture<ResponseEntity<ApiResponse<ChatResponse>>> sendAnonymousMessage(
             @Valid @RequestBody ChatRequest request) {
+        return chatService.sendAnonymousMessage(request)
+                .thenApply(response -> ResponseEntity.ok(ApiResponse.success(response)))
+                .exceptionally(e -> ResponseEntity.badRequest()
+                        .body(ApiResponse.error(e.getMessage())));
+    }
+
+    @PostMapping(value = "/send/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamMessage(
+            @Valid @RequestBody ChatRequest request,
+            Authentication authentication) {
+
+        if (authentication == null) {
+            return ResponseEntity.status(401).build();
+        }
+
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+        chatService.streamMessage(request, currentUser(authentication).id(), emitter);
+        return ResponseEntity.ok(emitter);
+    }
+
+    @PostMapping(value = "/anonymous/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAnonymousMessage(@Valid @RequestBody ChatRequest request) {
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+        chatService.streamAnonymousMessage(request, emitter);
+        return emitter;
+    }
+
+    // Newest chat.history.max-page-size chats; /history/page walks the rest
+    @GetMapping("/history")
+    public ResponseEntity<ApiResponse<List<ChatResponse>>> getChatHistory(
+            Authentication authentication) {
         try {
-            ChatResponse response = chatService.sendAnonymousMessage(request);
-            return ResponseEntity.ok(ApiResponse.success(response));
+            List<ChatResponse> history = chatService.getChatHistory(currentUser(authentication).id());
+            return ResponseEntity.ok(ApiResponse.success(history));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                     .body(ApiResponse.error(e.getMessage()));
         }
     }
 
-    @GetMapping("/history")
-    public ResponseEntity<ApiResponse<List<ChatResponse>>> getChatHistory(
+    @GetMapping("/history/page")
+    public ResponseEntity<ApiResponse<ChatHistoryPage>> getChatHistoryPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(defaultValue = "false") boolean summary,
             Authentication authentication) {
         try {
-            String email = authentication.getName();
-            List<ChatResponse> history = chatService.getChatHistory(email);
-            return ResponseEntity.ok(ApiResponse.success(history));
+            ChatHistoryPage page = chatService.getChatHistoryPage(
+                    currentUser(authentication).id(), cursor, size, summary);
+            return ResponseEntity.ok(ApiResponse.success(page));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse<PagedResponse<ChatSearchHit>>> searchChats(
+            @RequestParam String q,
+            @RequestParam(required = false) String sentiment,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) Integer size,
+            Authentication authentication) {
+        try {
+            PagedResponse<ChatSearchHit> results = chatSearchService.search(
+                    currentUser(authentication).id(), q, sentiment, from, to, page, size);
+            return ResponseEntity.ok(ApiResponse.success(results));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/mood-timeline")
+    public ResponseEntity<ApiResponse<List<MoodTimelineBucket>>> getMoodTimeline(
+            @RequestParam(defaultValue = MoodTimelineService.DAY) String granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            Authentication authentication) {
+        try {
+            List<MoodTimelineBucket> timeline = moodTimelineService.getTimeline(
+                    currentUser(authentication).id(), granularity, from, to);
+            return ResponseEntity.ok(ApiResponse.success(timeline));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                     .body(ApiResponse.error(e.getMessage()));
@@ -70,8 +151,7 @@ public class ChatController {
             @PathVariable Long chatId,
             Authentication authentication) {
         try {
-            String email = authentication.getName();
-            chatService.deleteChat(chatId, email);
+            chatService.deleteChat(chatId, currentUser(authentication).id());
             return ResponseEntity.ok(ApiResponse.success(null));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
@@ -83,10 +163,7 @@ public class ChatController {
     public ResponseEntity<ApiResponse<String>> clearConversationContext(
             Authentication authentication) {
         try {
-            User user = userRepository.findByEmail(authentication.getName())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-
-            openAIService.clearConversationHistory(user.getId().toString());
+            openAIService.clearConversationHistory(currentUser(authentication).id().toString());
 
             return ResponseEntity.ok(ApiResponse.success("Conversation context cleared successfully"));
         } catch (Exception e) {
@@ -94,4 +171,9 @@ public class ChatController {
                     .body(ApiResponse.error(e.getMessage()));
         }
     }
-}
\ No newline at end of file
+
+    // JwtAuthFilter resolves the user once per request and stores it as the principal
+    private static AuthenticatedUser currentUser(Authentication authentication) {
+        return (AuthenticatedUser) authentication.getPrincipal();
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatSearchHit {
+    private Long id;
+    // Fragments around the matches, with matched words wrapped in the configured markers.
+    // The chat text is HTML-escaped, so the fragments can be rendered as HTML.
+    private String messageHighlight;
+    private String responseHighlight;
+    private String sentiment;
+    private Double moodScore;
+    private LocalDateTime createdAt;
+    private double rank;
+}
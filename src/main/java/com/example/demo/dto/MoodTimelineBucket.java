@@ -0,0 +1,21 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MoodTimelineBucket {
+    // First day of the bucket (the Monday for weekly buckets)
+    private LocalDate start;
+    private long chats;
+    private Double averageMoodScore;
+    private Map<String, Long> sentiments;
+}
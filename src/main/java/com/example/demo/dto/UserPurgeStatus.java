@@ -0,0 +1,25 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserPurgeStatus {
+    private String jobId;
+    private Long userId;
+    // QUEUED, RUNNING, COMPLETED or FAILED
+    private String state;
+    private long chatsDeleted;
+    // Chats the user had when the purge started
+    private long chatsTotal;
+    private LocalDateTime submittedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+}
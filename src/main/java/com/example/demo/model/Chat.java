@@ -9,14 +9,26 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.time.LocalDateTime;
 
 @Entity
+// Partitioned by month of created_at; table, indexes and partitions are managed by the
+// Flyway migrations and ChatPartitionMaintenance
 @Table(name = "chats")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Chat {
 
+    /**
+     * Ids reserved per call to {@code chats_id_seq}; must match the sequence's INCREMENT BY.
+     * Each sequence value {@code v} owns the ids {@code (v - 50, v]}, the convention of
+     * Hibernate's pooled optimizer, so ids handed out by {@code ChatWriteBehind} never
+     * collide with those Hibernate assigns.
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    // Sequence ids let Hibernate batch inserts, which IDENTITY columns rule out
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "chats_id_seq")
+    @SequenceGenerator(name = "chats_id_seq", sequenceName = "chats_id_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,45 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Chats saved per calendar day and sentiment, kept up to date as chats are saved and
+ * deleted so dashboards never scan the chats table.
+ */
+@Entity
+@Table(name = "chat_daily_rollups")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatDailyRollup {
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(name = "chat_count", nullable = false)
+    private long chatCount;
+
+    @Column(name = "mood_score_sum", nullable = false)
+    private double moodScoreSum;
+
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        @Column(name = "rollup_date", nullable = false)
+        private LocalDate date;
+
+        @Column(nullable = false, length = 16)
+        private String sentiment;
+    }
+}
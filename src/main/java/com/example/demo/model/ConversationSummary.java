@@ -0,0 +1,30 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * The rolling summary of a user's older conversation turns, written each time a fold
+ * completes and read back when the conversation is rehydrated.
+ */
+@Entity
+@Table(name = "conversation_summaries")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConversationSummary {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String summary;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
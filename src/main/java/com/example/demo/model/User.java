@@ -33,6 +33,11 @@ public class User {
     @Enumerated(EnumType.STRING)
     private Role role = Role.USER;
 
+    // Set while the user is being purged
+    @Column(nullable = false)
+    @JsonIgnore
+    private boolean disabled;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
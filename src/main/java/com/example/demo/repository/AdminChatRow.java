@@ -0,0 +1,10 @@
+package com.example.demo.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * One line of the admin chat listing. Texts are previews cut by the database.
+ */
+public record AdminChatRow(Long id, Long userId, String userEmail, String message, String response,
+                           String sentiment, Double moodScore, LocalDateTime createdAt) {
+}
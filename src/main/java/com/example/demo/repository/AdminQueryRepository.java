@@ -0,0 +1,126 @@
+package com.example.demo.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Plain SQL reads behind the admin listings and exports. Listings are bounded pages of
+ * projected columns; exports stream rows through a forward-only cursor so the table is
+ * never held in memory.
+ */
+@Repository
+public class AdminQueryRepository {
+
+    private static final String CHAT_COLUMNS =
+            "c.id, c.user_id, u.email, c.sentiment, c.mood_score, c.created_at";
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final NamedParameterJdbcTemplate streamingJdbc;
+
+    public AdminQueryRepository(DataSource dataSource,
+                                @Value("${admin.export.fetch-size:500}") int exportFetchSize) {
+        this.jdbc = new NamedParameterJdbcTemplate(dataSource);
+
+        // The PostgreSQL driver only uses a server-side cursor with a fetch size inside a
+        // transaction; callers run exports in a read-only one
+        JdbcTemplate streaming = new JdbcTemplate(dataSource);
+        streaming.setFetchSize(exportFetchSize);
+        this.streamingJdbc = new NamedParameterJdbcTemplate(streaming);
+    }
+
+    public List<AdminChatRow> findChats(ChatFilter filter, int previewLength, int page, int size) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("preview", previewLength)
+                .addValue("limit", size)
+                .addValue("offset", (long) page * size);
+        String sql = "SELECT " + CHAT_COLUMNS + ", LEFT(c.message, :preview) AS message, "
+                + "LEFT(c.response, :preview) AS response "
+                + "FROM chats c LEFT JOIN users u ON u.id = c.user_id"
+                + where(filter, params)
+                + " ORDER BY c.created_at DESC, c.id DESC LIMIT :limit OFFSET :offset";
+        return jdbc.query(sql, params, (rs, rowNum) -> new AdminChatRow(
+                rs.getLong("id"),
+                rs.getObject("user_id", Long.class),
+                rs.getString("email"),
+                rs.getString("message"),
+                rs.getString("response"),
+                rs.getString("sentiment"),
+                rs.getObject("mood_score", Double.class),
+                toLocalDateTime(rs.getTimestamp("created_at"))));
+    }
+
+    public long countChats(ChatFilter filter) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        Long count = jdbc.queryForObject("SELECT COUNT(*) FROM chats c" + where(filter, params), params, Long.class);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Streams every matching chat, oldest first, with full texts, to {@code handler}.
+     * Columns: id, user_id, email, sentiment, mood_score, created_at, message, response.
+     * Must run inside a transaction for the cursor to be used.
+     */
+    public void streamChats(ChatFilter filter, RowCallbackHandler handler) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String sql = "SELECT " + CHAT_COLUMNS + ", c.message, c.response "
+                + "FROM chats c LEFT JOIN users u ON u.id = c.user_id"
+                + where(filter, params)
+                + " ORDER BY c.created_at, c.id";
+        streamingJdbc.query(sql, params, handler);
+    }
+
+    public List<AdminUserRow> findUsers(String emailContains, String role, int page, int size) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("limit", size)
+                .addValue("offset", (long) page * size);
+        String sql = "SELECT u.id, u.email, u.full_name, u.role, u.created_at FROM users u"
+                + userWhere(emailContains, role, params)
+                + " ORDER BY u.id LIMIT :limit OFFSET :offset";
+        return jdbc.query(sql, params, (rs, rowNum) -> new AdminUserRow(
+                rs.getLong("id"),
+                rs.getString("email"),
+                rs.getString("full_name"),
+                rs.getString("role"),
+                toLocalDateTime(rs.getTimestamp("created_at"))));
+    }
+
+    public long countUsers(String emailContains, String role) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        Long count = jdbc.queryForObject(
+                "SELECT COUNT(*) FROM users u" + userWhere(emailContains, role, params), params, Long.class);
+        return count == null ? 0 : count;
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+
+    private static String where(ChatFilter filter, MapSqlParameterSource params) {
+        List<String> conditions = filter.conditions(params);
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    private static String userWhere(String emailContains, String role, MapSqlParameterSource params) {
+        List<String> conditions = new ArrayList<>();
+        if (emailContains != null && !emailContains.isBlank()) {
+            conditions.add("LOWER(u.email) LIKE :email");
+            params.addValue("email", "%" + emailContains.trim().toLowerCase(Locale.ROOT) + "%");
+        }
+        if (role != null && !role.isBlank()) {
+            conditions.add("u.role = :role");
+            params.addValue("role", role.trim().toUpperCase(Locale.ROOT));
+        }
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.demo.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * One line of the admin user listing; never includes the password hash.
+ */
+public record AdminUserRow(Long id, String email, String fullName, String role, LocalDateTime createdAt) {
+}
@@ -0,0 +1,41 @@
+package com.example.demo.repository;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Optional filters for chat listings, exports and searches. Null fields are not applied;
+ * {@code from} and {@code to} are inclusive calendar days.
+ */
+public record ChatFilter(Long userId, String sentiment, LocalDate from, LocalDate to) {
+
+    /**
+     * SQL conditions on the chats table aliased {@code c}, binding their values into
+     * {@code params}.
+     */
+    List<String> conditions(MapSqlParameterSource params) {
+        List<String> conditions = new ArrayList<>();
+        if (userId != null) {
+            conditions.add("c.user_id = :userId");
+            params.addValue("userId", userId);
+        }
+        if (sentiment != null && !sentiment.isBlank()) {
+            conditions.add("c.sentiment = :sentiment");
+            params.addValue("sentiment", sentiment.trim().toUpperCase(Locale.ROOT));
+        }
+        if (from != null) {
+            conditions.add("c.created_at >= :from");
+            params.addValue("from", Timestamp.valueOf(from.atStartOfDay()));
+        }
+        if (to != null) {
+            conditions.add("c.created_at < :to");
+            params.addValue("to", Timestamp.valueOf(to.plusDays(1).atStartOfDay()));
+        }
+        return conditions;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.demo.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Columns of a chat needed to render history, read without hydrating the entity.
+ */
+public record ChatHistoryRow(Long id, String message, String response, String sentiment, Double moodScore,
+                             LocalDateTime createdAt) {
+}
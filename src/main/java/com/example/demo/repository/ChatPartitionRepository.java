@@ -0,0 +1,103 @@
+package com.example.demo.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * DDL on the monthly partitions of {@code chats}, named {@code chats_pYYYY_MM} (see the V2
+ * migration). Statements join the caller's transaction.
+ */
+@Repository
+public class ChatPartitionRepository {
+
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final Pattern MONTH_PARTITION = Pattern.compile("chats_p(\\d{4})_(\\d{2})");
+
+    private final JdbcTemplate jdbc;
+
+    public ChatPartitionRepository(DataSource dataSource) {
+        this.jdbc = new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * Takes a transaction-scoped advisory lock so only one node maintains partitions at a
+     * time. Returns false if another node holds it.
+     */
+    public boolean tryLockMaintenance() {
+        return Boolean.TRUE.equals(jdbc.queryForObject(
+                "SELECT pg_try_advisory_xact_lock(hashtext('chats-partition-maintenance'))", Boolean.class));
+    }
+
+    /**
+     * Months that currently have a partition attached to {@code chats}.
+     */
+    public List<YearMonth> findMonths() {
+        List<String> names = jdbc.queryForList(
+                "SELECT c.relname FROM pg_inherits i "
+                        + "JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "JOIN pg_class p ON p.oid = i.inhparent "
+                        + "WHERE p.relname = 'chats' AND p.relnamespace = to_regnamespace(current_schema())",
+                String.class);
+        return names.stream()
+                .map(ChatPartitionRepository::monthOf)
+                .flatMap(Optional::stream)
+                .sorted()
+                .toList();
+    }
+
+    public void create(YearMonth month) {
+        jdbc.execute("CREATE TABLE IF NOT EXISTS " + name(month) + " PARTITION OF chats FOR VALUES FROM ('"
+                + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+    }
+
+    /**
+     * Standalone month tables left behind by {@link #detach}, oldest first.
+     */
+    public List<String> findArchivedTables() {
+        return jdbc.queryForList(
+                "SELECT c.relname FROM pg_class c "
+                        + "WHERE c.relnamespace = to_regnamespace(current_schema()) AND c.relkind = 'r' "
+                        + "AND NOT c.relispartition AND c.relname ~ '^chats_p[0-9]{4}_[0-9]{2}$' "
+                        + "ORDER BY c.relname",
+                String.class);
+    }
+
+    /**
+     * Detaches the month's partition; it stays behind as a standalone table. The table
+     * keeps its copy of the foreign key to {@code users}, which is dropped here so that
+     * archived rows never block deleting a user.
+     */
+    public void detach(YearMonth month) {
+        String partition = name(month);
+        jdbc.execute("ALTER TABLE chats DETACH PARTITION " + partition);
+        List<String> foreignKeys = jdbc.queryForList(
+                "SELECT quote_ident(conname) FROM pg_constraint WHERE conrelid = CAST(? AS regclass) AND contype = 'f'",
+                String.class, partition);
+        for (String foreignKey : foreignKeys) {
+            jdbc.execute("ALTER TABLE " + partition + " DROP CONSTRAINT " + foreignKey);
+        }
+    }
+
+    public void drop(YearMonth month) {
+        jdbc.execute("DROP TABLE " + name(month));
+    }
+
+    public static String name(YearMonth month) {
+        return "chats_p" + month.format(SUFFIX);
+    }
+
+    private static Optional<YearMonth> monthOf(String partition) {
+        Matcher matcher = MONTH_PARTITION.matcher(partition);
+        return matcher.matches()
+                ? Optional.of(YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))))
+                : Optional.empty();
+    }
+}
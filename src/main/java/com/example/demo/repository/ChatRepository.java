@@ -1,7 +1,9 @@
 package com.example.demo.repository;
 
 import com.example.demo.model.Chat;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDateTime;
@@ -21,4 +23,44 @@ public interface ChatRepository extends JpaRepository<Chat, Long> {
 
     @Query("SELECT c.sentiment, COUNT(c) FROM Chat c WHERE c.user.id = ?1 GROUP BY c.sentiment")
     List<Object[]> getSentimentDistribution(Long userId);
+
+    @Query("SELECT c.message, c.response FROM Chat c WHERE c.user.id = ?1 ORDER BY c.createdAt DESC")
+    List<Object[]> findRecentTurns(Long userId, Pageable pageable);
+
+    @Query("SELECT c.message, c.response FROM Chat c WHERE c.user.id = ?1 AND c.createdAt > ?2 ORDER BY c.createdAt DESC")
+    List<Object[]> findRecentTurnsSince(Long userId, LocalDateTime since, Pageable pageable);
+
+    // Keyset pages over (createdAt, id), newest first. Texts are cut to ?2 characters in the
+    // database so summary pages never transfer full messages.
+    @Query("SELECT new com.example.demo.repository.ChatHistoryRow(c.id, SUBSTRING(c.message, 1, ?2), "
+            + "SUBSTRING(c.response, 1, ?2), c.sentiment, c.moodScore, c.createdAt) "
+            + "FROM Chat c WHERE c.user.id = ?1 ORDER BY c.createdAt DESC, c.id DESC")
+    List<ChatHistoryRow> findHistoryPage(Long userId, int textLength, Pageable pageable);
+
+    @Query("SELECT new com.example.demo.repository.ChatHistoryRow(c.id, SUBSTRING(c.message, 1, ?2), "
+            + "SUBSTRING(c.response, 1, ?2), c.sentiment, c.moodScore, c.createdAt) "
+            + "FROM Chat c WHERE c.user.id = ?1 "
+            + "AND (c.createdAt < ?3 OR (c.createdAt = ?3 AND c.id < ?4)) "
+            + "ORDER BY c.createdAt DESC, c.id DESC")
+    List<ChatHistoryRow> findHistoryPageBefore(Long userId, int textLength, LocalDateTime createdAt, Long id,
+                                               Pageable pageable);
+
+    @Query("SELECT c.user.id FROM Chat c WHERE c.id = ?1")
+    Long findUserIdById(Long chatId);
+
+    long countByUserId(Long userId);
+
+    // Rows of (bucket start, sentiment, chats, mood score sum, scored chats); ?2 is a
+    // date_trunc unit such as 'day' or 'week'
+    @Query(value = "SELECT CAST(date_trunc(?2, created_at) AS DATE) AS bucket, "
+            + "COALESCE(sentiment, 'NEUTRAL') AS sentiment, COUNT(*) AS chats, "
+            + "SUM(mood_score) AS mood_sum, COUNT(mood_score) AS scored "
+            + "FROM chats WHERE user_id = ?1 AND created_at >= ?3 AND created_at < ?4 "
+            + "GROUP BY 1, 2 ORDER BY 1",
+            nativeQuery = true)
+    List<Object[]> getMoodTimeline(Long userId, String unit, LocalDateTime from, LocalDateTime to);
+
+    @Modifying
+    @Query("DELETE FROM Chat c WHERE c.id = ?1 AND c.user.id = ?2")
+    int deleteByIdAndUserId(Long chatId, Long userId);
 }
\ No newline at end of file
@@ -0,0 +1,64 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.ChatDailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ChatRollupRepository extends JpaRepository<ChatDailyRollup, ChatDailyRollup.Key> {
+
+    @Modifying
+    @Query(value = "INSERT INTO chat_daily_rollups (rollup_date, sentiment, chat_count, mood_score_sum) "
+            + "VALUES (?1, ?2, ?3, ?4) "
+            + "ON CONFLICT (rollup_date, sentiment) DO UPDATE SET "
+            + "chat_count = chat_daily_rollups.chat_count + EXCLUDED.chat_count, "
+            + "mood_score_sum = chat_daily_rollups.mood_score_sum + EXCLUDED.mood_score_sum",
+            nativeQuery = true)
+    int add(LocalDate date, String sentiment, long chatCount, double moodScoreSum);
+
+    // The subtract queries must run before the chats they describe are deleted
+    @Modifying
+    @Query(value = "UPDATE chat_daily_rollups r SET chat_count = r.chat_count - s.n, "
+            + "mood_score_sum = r.mood_score_sum - s.total "
+            + "FROM (SELECT CAST(created_at AS DATE) AS d, COALESCE(sentiment, 'NEUTRAL') AS sentiment, "
+            + "COUNT(*) AS n, COALESCE(SUM(mood_score), 0) AS total "
+            + "FROM chats WHERE id = ?1 GROUP BY 1, 2) s "
+            + "WHERE r.rollup_date = s.d AND r.sentiment = s.sentiment",
+            nativeQuery = true)
+    int subtractChat(Long chatId);
+
+    @Modifying
+    @Query(value = "UPDATE chat_daily_rollups r SET chat_count = r.chat_count - s.n, "
+            + "mood_score_sum = r.mood_score_sum - s.total "
+            + "FROM (SELECT CAST(created_at AS DATE) AS d, COALESCE(sentiment, 'NEUTRAL') AS sentiment, "
+            + "COUNT(*) AS n, COALESCE(SUM(mood_score), 0) AS total "
+            + "FROM chats WHERE id = ?1 AND user_id = ?2 GROUP BY 1, 2) s "
+            + "WHERE r.rollup_date = s.d AND r.sentiment = s.sentiment",
+            nativeQuery = true)
+    int subtractOwnedChat(Long chatId, Long userId);
+
+    // Seeds rollups from existing chats; rows that already exist are left alone, so a
+    // second node starting at the same time is harmless
+
+    @Modifying
+    @Query(value = "INSERT INTO chat_daily_rollups (rollup_date, sentiment, chat_count, mood_score_sum) "
+            + "SELECT CAST(created_at AS DATE), COALESCE(sentiment, 'NEUTRAL'), COUNT(*), "
+            + "COALESCE(SUM(mood_score), 0) FROM chats GROUP BY 1, 2 "
+            + "ON CONFLICT (rollup_date, sentiment) DO NOTHING",
+            nativeQuery = true)
+    int backfill();
+
+    @Query("SELECT r.id.sentiment, SUM(r.chatCount) FROM ChatDailyRollup r GROUP BY r.id.sentiment")
+    List<Object[]> getSentimentDistribution();
+
+    @Query("SELECT COALESCE(SUM(r.chatCount), 0) FROM ChatDailyRollup r")
+    long getTotalChats();
+
+    @Query("SELECT r FROM ChatDailyRollup r WHERE r.id.date >= ?1 ORDER BY r.id.date, r.id.sentiment")
+    List<ChatDailyRollup> findSince(LocalDate since);
+}
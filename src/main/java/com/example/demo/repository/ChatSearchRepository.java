@@ -0,0 +1,85 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.ChatSearchHit;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Ranked full-text search over {@code chats.search_vector} (see the V3 migration). Queries
+ * use web search syntax: plain words, "quoted phrases", {@code or} and {@code -excluded}.
+ */
+@Repository
+public class ChatSearchRepository {
+
+    private static final String TS_CONFIG = "'english'";
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    public ChatSearchRepository(DataSource dataSource) {
+        this.jdbc = new NamedParameterJdbcTemplate(dataSource);
+    }
+
+    /**
+     * One page of matches, best first. {@code filter.userId()} must be set. Highlights
+     * are only built for the rows of the page, since ts_headline re-parses the full text.
+     * The text is HTML-escaped before ts_headline adds its markers, so the markers are the
+     * only markup in a highlight.
+     */
+    public List<ChatSearchHit> search(ChatFilter filter, String query, String headlineOptions, int page, int size) {
+        MapSqlParameterSource params = params(query)
+                .addValue("headline", headlineOptions)
+                .addValue("limit", size)
+                .addValue("offset", (long) page * size);
+        String sql = "SELECT m.id, m.sentiment, m.mood_score, m.created_at, m.rank, "
+                + "ts_headline(" + TS_CONFIG + ", " + escapeHtml("m.message") + ", m.query, :headline) AS message_highlight, "
+                + "ts_headline(" + TS_CONFIG + ", " + escapeHtml("m.response") + ", m.query, :headline) AS response_highlight "
+                + "FROM (SELECT c.id, c.message, c.response, c.sentiment, c.mood_score, c.created_at, q.query, "
+                + "ts_rank_cd(c.search_vector, q.query) AS rank "
+                + "FROM chats c, (SELECT websearch_to_tsquery(" + TS_CONFIG + ", :query) AS query) q"
+                + where(filter, params)
+                + " ORDER BY rank DESC, c.created_at DESC, c.id DESC LIMIT :limit OFFSET :offset) m "
+                + "ORDER BY m.rank DESC, m.created_at DESC, m.id DESC";
+        return jdbc.query(sql, params, (rs, rowNum) -> {
+            Timestamp createdAt = rs.getTimestamp("created_at");
+            return ChatSearchHit.builder()
+                    .id(rs.getLong("id"))
+                    .messageHighlight(rs.getString("message_highlight"))
+                    .responseHighlight(rs.getString("response_highlight"))
+                    .sentiment(rs.getString("sentiment"))
+                    .moodScore(rs.getObject("mood_score", Double.class))
+                    .createdAt(createdAt == null ? null : createdAt.toLocalDateTime())
+                    .rank(rs.getDouble("rank"))
+                    .build();
+        });
+    }
+
+    public long count(ChatFilter filter, String query) {
+        MapSqlParameterSource params = params(query);
+        Long count = jdbc.queryForObject(
+                "SELECT COUNT(*) FROM chats c, (SELECT websearch_to_tsquery(" + TS_CONFIG + ", :query) AS query) q"
+                        + where(filter, params),
+                params, Long.class);
+        return count == null ? 0 : count;
+    }
+
+    // ts_headline's parser keeps entities such as &lt; whole, so fragments never split them
+    private static String escapeHtml(String column) {
+        return "replace(replace(replace(replace(replace(" + column
+                + ", '&', '&amp;'), '<', '&lt;'), '>', '&gt;'), '\"', '&quot;'), '''', '&#39;')";
+    }
+
+    private static MapSqlParameterSource params(String query) {
+        return new MapSqlParameterSource().addValue("query", query);
+    }
+
+    private static String where(ChatFilter filter, MapSqlParameterSource params) {
+        List<String> conditions = filter.conditions(params);
+        conditions.add("c.search_vector @@ q.query");
+        return " WHERE " + String.join(" AND ", conditions);
+    }
+}
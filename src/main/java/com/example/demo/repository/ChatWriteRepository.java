@@ -0,0 +1,65 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.Chat;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Plain JDBC writes for the write-behind chat buffer: id reservation from
+ * {@code chats_id_seq} and multi-row inserts sent as one JDBC batch.
+ */
+@Repository
+public class ChatWriteRepository {
+
+    private static final String INSERT_CHAT = "INSERT INTO chats "
+            + "(id, user_id, message, response, sentiment, mood_score, is_anonymous, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Matches hibernate.jdbc.time_zone so rows read the same whichever path wrote them
+    private static final TimeZone JDBC_TIME_ZONE = TimeZone.getTimeZone("UTC");
+
+    private final JdbcTemplate jdbc;
+
+    public ChatWriteRepository(DataSource dataSource) {
+        this.jdbc = new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * Reserves the next block of {@link Chat#ID_ALLOCATION_SIZE} ids and returns its highest id.
+     */
+    public long nextIdBlock() {
+        Long value = jdbc.queryForObject("SELECT nextval('chats_id_seq')", Long.class);
+        if (value == null) {
+            throw new IllegalStateException("chats_id_seq returned no value");
+        }
+        return value;
+    }
+
+    /**
+     * Inserts chats whose id, user and creation time are already set. Joins the caller's
+     * transaction.
+     */
+    public void insertAll(List<Chat> chats) {
+        jdbc.batchUpdate(INSERT_CHAT, chats, chats.size(), (ps, chat) -> {
+            ps.setLong(1, chat.getId());
+            ps.setLong(2, chat.getUser().getId());
+            ps.setString(3, chat.getMessage());
+            ps.setString(4, chat.getResponse());
+            ps.setString(5, chat.getSentiment());
+            if (chat.getMoodScore() == null) {
+                ps.setNull(6, Types.DOUBLE);
+            } else {
+                ps.setDouble(6, chat.getMoodScore());
+            }
+            ps.setBoolean(7, Boolean.TRUE.equals(chat.getIsAnonymous()));
+            ps.setTimestamp(8, Timestamp.valueOf(chat.getCreatedAt()), Calendar.getInstance(JDBC_TIME_ZONE));
+        });
+    }
+}
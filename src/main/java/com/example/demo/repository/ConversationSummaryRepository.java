@@ -0,0 +1,23 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.ConversationSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface ConversationSummaryRepository extends JpaRepository<ConversationSummary, Long> {
+
+    @Modifying
+    @Query(value = "INSERT INTO conversation_summaries (user_id, summary, updated_at) VALUES (?1, ?2, ?3) "
+            + "ON CONFLICT (user_id) DO UPDATE SET summary = EXCLUDED.summary, updated_at = EXCLUDED.updated_at",
+            nativeQuery = true)
+    int upsert(Long userId, String summary, LocalDateTime updatedAt);
+
+    @Modifying
+    @Query(value = "DELETE FROM conversation_summaries WHERE user_id = ?1", nativeQuery = true)
+    int deleteByUserId(Long userId);
+}
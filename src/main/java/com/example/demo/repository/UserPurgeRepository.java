@@ -0,0 +1,62 @@
+package com.example.demo.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+
+/**
+ * Set-based deletes for purging a user. Chat statements take the table to work on:
+ * {@code chats} itself or one of the archived month tables (see
+ * {@link ChatPartitionRepository#findArchivedTables}). Each statement joins the caller's
+ * transaction.
+ */
+@Repository
+public class UserPurgeRepository {
+
+    // Deletes up to ?2 chats of user ?1 from table %1$s and subtracts them from the daily
+    // rollups in the same statement; returns how many chats were deleted
+    private static final String DELETE_CHAT_CHUNK = "WITH deleted AS ("
+            + "DELETE FROM %1$s WHERE (id, created_at) IN "
+            + "(SELECT id, created_at FROM %1$s WHERE user_id = ? LIMIT ?) "
+            + "RETURNING created_at, sentiment, mood_score), "
+            + "totals AS (SELECT CAST(created_at AS DATE) AS d, COALESCE(sentiment, 'NEUTRAL') AS sentiment, "
+            + "COUNT(*) AS n, COALESCE(SUM(mood_score), 0) AS total FROM deleted GROUP BY 1, 2), "
+            + "rollups AS (UPDATE chat_daily_rollups r SET chat_count = r.chat_count - t.n, "
+            + "mood_score_sum = r.mood_score_sum - t.total FROM totals t "
+            + "WHERE r.rollup_date = t.d AND r.sentiment = t.sentiment) "
+            + "SELECT COALESCE(SUM(n), 0) FROM totals";
+
+    private final JdbcTemplate jdbc;
+
+    public UserPurgeRepository(DataSource dataSource) {
+        this.jdbc = new JdbcTemplate(dataSource);
+    }
+
+    public long countChats(String table, Long userId) {
+        Long count = jdbc.queryForObject("SELECT COUNT(*) FROM " + table + " WHERE user_id = ?", Long.class, userId);
+        return count == null ? 0 : count;
+    }
+
+    public long deleteChatChunk(String table, Long userId, int chunkSize) {
+        Long deleted = jdbc.queryForObject(DELETE_CHAT_CHUNK.formatted(table), Long.class, userId, chunkSize);
+        return deleted == null ? 0 : deleted;
+    }
+
+    public int disableUser(Long userId) {
+        return jdbc.update("UPDATE users SET disabled = true WHERE id = ?", userId);
+    }
+
+    /**
+     * Locks the user row until the transaction ends. Inserting a chat takes a key-share
+     * lock on its user, so concurrent inserts wait and then fail on the foreign key once
+     * the user is deleted, instead of slipping in ahead of the delete.
+     */
+    public void lockUser(Long userId) {
+        jdbc.queryForList("SELECT id FROM users WHERE id = ? FOR UPDATE", Long.class, userId);
+    }
+
+    public int deleteUser(Long userId) {
+        return jdbc.update("DELETE FROM users WHERE id = ?", userId);
+    }
+}
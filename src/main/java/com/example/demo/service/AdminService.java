@@ -1,12 +1,23 @@
 package com.example.demo.service;
 
-import com.example.demo.model.Chat;
-import com.example.demo.model.User;
+import com.example.demo.dto.MoodTimelineBucket;
+import com.example.demo.dto.PagedResponse;
+import com.example.demo.dto.UserPurgeStatus;
+import com.example.demo.repository.AdminChatRow;
+import com.example.demo.repository.AdminQueryRepository;
+import com.example.demo.repository.AdminUserRow;
+import com.example.demo.repository.ChatFilter;
 import com.example.demo.repository.ChatRepository;
 import com.example.demo.repository.UserRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.sql.DataSource;
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -17,31 +28,111 @@ public class AdminService {
 
     private final UserRepository userRepository;
     private final ChatRepository chatRepository;
+    private final ChatService chatService;
+    private final ConversationStore conversationStore;
+    private final ResponseCache responseCache;
+    private final RequestCoalescer requestCoalescer;
+    private final GroqClient groqClient;
+    private final PasswordHasher passwordHasher;
+    private final RateLimiter rateLimiter;
+    private final AdminQueryRepository adminQueryRepository;
+    private final ChatRollupService chatRollupService;
+    private final MoodTimelineService moodTimelineService;
+    private final ChatWriteBehind chatWriteBehind;
+    private final ChatPartitionMaintenance chatPartitionMaintenance;
+    private final UserPurgeService userPurgeService;
+    private final DataSource dataSource;
+
+    @Value("${admin.page.max-size:100}")
+    private int maxPageSize;
+
+    @Value("${admin.page.preview-length:200}")
+    private int previewLength;
+
+    @Value("${admin.analytics.max-days:366}")
+    private int maxActivityDays;
+
+    @Value("${admin.list.max-rows:500}")
+    private int maxListRows;
+
+    /**
+     * The first {@code admin.list.max-rows} users by id; larger sets need the paged listing.
+     */
+    public List<AdminUserRow> getAllUsers() {
+        return adminQueryRepository.findUsers(null, null, 0, maxListRows);
+    }
+
+    /**
+     * The newest {@code admin.list.max-rows} chats with previews; larger sets need the paged
+     * listing or the export.
+     */
+    public List<AdminChatRow> getAllChats() {
+        return adminQueryRepository.findChats(new ChatFilter(null, null, null, null), previewLength, 0, maxListRows);
+    }
+
+    public PagedResponse<AdminUserRow> getUsersPage(String email, String role, int page, int size) {
+        int pageSize = clampPageSize(size);
+        int pageNumber = Math.max(page, 0);
+        List<AdminUserRow> items = adminQueryRepository.findUsers(email, role, pageNumber, pageSize);
+        return toPage(items, pageNumber, pageSize, adminQueryRepository.countUsers(email, role));
+    }
+
+    public PagedResponse<AdminChatRow> getChatsPage(ChatFilter filter, int page, int size) {
+        int pageSize = clampPageSize(size);
+        int pageNumber = Math.max(page, 0);
+        List<AdminChatRow> items = adminQueryRepository.findChats(filter, previewLength, pageNumber, pageSize);
+        return toPage(items, pageNumber, pageSize, adminQueryRepository.countChats(filter));
+    }
+
+    private int clampPageSize(int size) {
+        return Math.min(Math.max(size, 1), maxPageSize);
+    }
+
+    private static <T> PagedResponse<T> toPage(List<T> items, int page, int size, long total) {
+        return PagedResponse.<T>builder()
+                .items(items)
+                .page(page)
+                .size(size)
+                .totalElements(total)
+                .totalPages((int) ((total + size - 1) / size))
+                .build();
+    }
 
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    /**
+     * Queues a background purge of the user and all their chats; see {@link UserPurgeService}.
+     */
+    public UserPurgeStatus deleteUser(Long userId) {
+        return userPurgeService.submit(userId);
     }
 
-    public List<Chat> getAllChats() {
-        return chatRepository.findAll();
+    public UserPurgeStatus getUserPurge(String jobId) {
+        return userPurgeService.getStatus(jobId);
     }
 
-    public void deleteUser(Long userId) {
-        userRepository.deleteById(userId);
+    public List<UserPurgeStatus> getUserPurges() {
+        return userPurgeService.getRecent();
     }
 
+    @Transactional
     public void deleteChat(Long chatId) {
+        Long ownerId = chatRepository.findUserIdById(chatId);
+        chatRollupService.beforeChatDeleted(chatId);
         chatRepository.deleteById(chatId);
+        if (ownerId != null) {
+            moodTimelineService.invalidate(ownerId);
+        }
     }
 
+    /**
+     * Dashboard totals, read from the daily rollups rather than the chats table.
+     */
     public Map<String, Object> getAnalytics() {
         Map<String, Object> analytics = new HashMap<>();
 
         long totalUsers = userRepository.count();
-        long totalChats = chatRepository.count();
+        long totalChats = chatRollupService.getTotalChats();
 
-        List<Object[]> sentimentDist = chatRepository
-                .getSentimentDistribution(null); // For all users
+        List<Object[]> sentimentDist = chatRollupService.getSentimentDistribution();
 
         analytics.put("totalUsers", totalUsers);
         analytics.put("totalChats", totalChats);
@@ -50,17 +141,75 @@ public class AdminService {
         return analytics;
     }
 
+    public List<Map<String, Object>> getDailyActivity(int days) {
+        return chatRollupService.getDailyActivity(Math.min(Math.max(days, 1), maxActivityDays));
+    }
+
+    public List<MoodTimelineBucket> getUserMoodTimeline(Long userId, String granularity, LocalDate from, LocalDate to) {
+        return moodTimelineService.getTimeline(userId, granularity, from, to);
+    }
+
     public Map<String, Object> getUserAnalytics(Long userId) {
         Map<String, Object> analytics = new HashMap<>();
 
         Double avgMoodScore = chatRepository.getAverageMoodScore(userId);
         List<Object[]> sentimentDist = chatRepository.getSentimentDistribution(userId);
-        List<Chat> recentChats = chatRepository.findRecentChatsByUserId(userId);
+        long totalChats = chatRepository.countByUserId(userId);
 
         analytics.put("averageMoodScore", avgMoodScore != null ? avgMoodScore : 0.0);
         analytics.put("sentimentDistribution", sentimentDist);
-        analytics.put("totalChats", recentChats.size());
+        analytics.put("totalChats", totalChats);
 
         return analytics;
     }
-}
\ No newline at end of file
+
+    /**
+     * Snapshot of the Hikari pool next to the number of chats currently generating. With
+     * the LLM call outside any transaction, active connections stay well below in-flight
+     * generations instead of tracking them one for one.
+     */
+    public Map<String, Object> getDbPoolStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("chatGenerationsInFlight", chatService.getGenerationsInFlight());
+        stats.put("chatWriteBehindQueueDepth", chatWriteBehind.getQueueDepth());
+
+        if (dataSource instanceof HikariDataSource hikari && hikari.getHikariPoolMXBean() != null) {
+            HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+            stats.put("activeConnections", pool.getActiveConnections());
+            stats.put("idleConnections", pool.getIdleConnections());
+            stats.put("totalConnections", pool.getTotalConnections());
+            stats.put("threadsAwaitingConnection", pool.getThreadsAwaitingConnection());
+            stats.put("maximumPoolSize", hikari.getMaximumPoolSize());
+        }
+
+        return stats;
+    }
+
+    public Map<String, Object> getConversationStats() {
+        return conversationStore.getStats();
+    }
+
+    public Map<String, Object> getResponseCacheStats() {
+        return responseCache.getStats();
+    }
+
+    public Map<String, Object> getCoalescingStats() {
+        return requestCoalescer.getStats();
+    }
+
+    public Map<String, Object> getCircuitBreakerStats() {
+        return groqClient.getCircuitBreakerStats();
+    }
+
+    public Map<String, Object> getPasswordHasherStats() {
+        return passwordHasher.getStats();
+    }
+
+    public Map<String, Object> getRateLimitStats() {
+        return rateLimiter.getStats();
+    }
+
+    public Map<String, Object> getChatPartitionStats() {
+        return chatPartitionMaintenance.getStatus();
+    }
+}
@@ -4,76 +4,110 @@ import com.example.demo.dto.*;
 import com.example.demo.model.User;
 import com.example.demo.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Registration and login. Password hashing runs on {@link PasswordHasher}'s bounded pool,
+ * so these methods return futures and never hold a request thread (or a transaction)
+ * while BCrypt works. Database writes stay off that pool, so its threads only hash.
+ */
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class AuthService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
     private final JwtService jwtService;
+    private final TransactionTemplate transactionTemplate;
+    private final CompletionPool completionPool;
 
-    @Transactional
-    public AuthResponse register(RegisterRequest request) {
-        // Check if email already exists
-        if (userRepository.existsByEmail(request.getEmail())) {
-            throw new RuntimeException("Email already exists");
-        }
-
-        // Create new user
-        User user = new User();
-        user.setEmail(request.getEmail());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
-        user.setFullName(request.getFullName());
-        user.setRole(User.Role.USER);
-
-        // Save user to database
-        User savedUser = userRepository.save(user);
-
-        // Generate JWT token with role
-        String token = jwtService.generateToken(savedUser.getEmail(), savedUser.getRole().name());
+    public CompletableFuture<AuthResponse> register(RegisterRequest request) {
+        return register(request, User.Role.USER, "Registration successful");
+    }
 
-        // Return response
-        return AuthResponse.builder()
-                .token(token)
-                .email(savedUser.getEmail())
-                .fullName(savedUser.getFullName())
-                .role(savedUser.getRole().name())
-                .message("Registration successful")
-                .build();
+    public CompletableFuture<AuthResponse> registerAdmin(RegisterRequest request) {
+        return register(request, User.Role.ADMIN, "Admin registration successful");
     }
 
-    @Transactional
-    public AuthResponse login(LoginRequest request) {
+    public CompletableFuture<AuthResponse> login(LoginRequest request) {
         // Find user by email
-        User user = userRepository.findByEmail(request.getEmail())
-                .orElseThrow(() -> new RuntimeException("Invalid email or password"));
+        User user = userRepository.findByEmail(request.getEmail()).orElse(null);
+        if (user == null || user.isDisabled()) {
+            return CompletableFuture.failedFuture(new RuntimeException("Invalid email or password"));
+        }
 
         // Verify password
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
-            throw new RuntimeException("Invalid email or password");
+        return passwordHasher.matches(request.getPassword(), user.getPassword())
+                .thenApply(matches -> {
+                    if (!matches) {
+                        throw new RuntimeException("Invalid email or password");
+                    }
+                    if (passwordHasher.needsRehash(user.getPassword())) {
+                        rehash(user, request.getPassword());
+                    }
+                    return toResponse(user, "Login successful");
+                });
+    }
+
+    @Transactional(readOnly = true)
+    public User getUserByEmail(String email) {
+        return userRepository.findByEmail(email)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+    }
+
+    private CompletableFuture<AuthResponse> register(RegisterRequest request, User.Role role, String message) {
+        // Check if email already exists
+        if (userRepository.existsByEmail(request.getEmail())) {
+            return CompletableFuture.failedFuture(new RuntimeException("Email already exists"));
         }
 
+        return passwordHasher.encode(request.getPassword())
+                .thenApplyAsync(hash -> {
+                    // Create new user
+                    User user = new User();
+                    user.setEmail(request.getEmail());
+                    user.setPassword(hash);
+                    user.setFullName(request.getFullName());
+                    user.setRole(role);
+
+                    // Save user to database
+                    User savedUser = transactionTemplate.execute(status -> userRepository.save(user));
+                    return toResponse(savedUser, message);
+                }, completionPool.executor());
+    }
+
+    /**
+     * Re-hashes a verified password at the configured cost in the background. The login
+     * response does not wait for it, and if the hasher is saturated the upgrade simply
+     * happens on a later login.
+     */
+    private void rehash(User user, String rawPassword) {
+        String currentHash = user.getPassword();
+        passwordHasher.encode(rawPassword)
+                .thenAcceptAsync(newHash -> transactionTemplate.executeWithoutResult(status ->
+                        userRepository.updatePasswordHash(user.getId(), currentHash, newHash)), completionPool.executor())
+                .exceptionally(e -> {
+                    log.debug("Password rehash for user {} skipped: {}", user.getId(), e.getMessage());
+                    return null;
+                });
+    }
+
+    private AuthResponse toResponse(User user, String message) {
         // Generate JWT token with role
-        String token = jwtService.generateToken(user.getEmail(), user.getRole().name());
+        String token = jwtService.generateToken(user.getId(), user.getEmail(), user.getRole().name());
 
-        // Return response
         return AuthResponse.builder()
                 .token(token)
                 .email(user.getEmail())
                 .fullName(user.getFullName())
                 .role(user.getRole().name())
-                .message("Login successful")
+                .message(message)
                 .build();
     }
-
-    @Transactional(readOnly = true)
-    public User getUserByEmail(String email) {
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-    }
-}
\ No newline at end of file
+}
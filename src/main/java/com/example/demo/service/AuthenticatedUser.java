@@ -0,0 +1,15 @@
+package com.example.demo.service;
+
+import java.security.Principal;
+
+/**
+ * Principal that JwtAuthFilter puts into the security context. Carrying the id lets
+ * request handlers work with the current user without looking them up by email.
+ */
+public record AuthenticatedUser(Long id, String email, String role) implements Principal {
+
+    @Override
+    public String getName() {
+        return email;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.demo.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * The calendar day of a chat, in UTC everywhere.
+ *
+ * {@code chats.created_at} is stored as UTC wall-clock time (hibernate.jdbc.time_zone),
+ * which is what SQL sees in {@code CAST(created_at AS DATE)}, {@code date_trunc} and the
+ * monthly partition bounds. In Java, entities and JPA parameters use the JVM's zone and
+ * Hibernate converts at the boundary. These helpers translate, so rollups written from
+ * Java land on the same day SQL would give them.
+ */
+final class ChatDays {
+
+    private ChatDays() {
+    }
+
+    static LocalDate today() {
+        return LocalDate.now(ZoneOffset.UTC);
+    }
+
+    /**
+     * UTC day of a {@code createdAt} read from or assigned to a {@code Chat}.
+     */
+    static LocalDate of(LocalDateTime createdAt) {
+        return createdAt.atZone(ZoneId.systemDefault()).withZoneSameInstant(ZoneOffset.UTC).toLocalDate();
+    }
+
+    /**
+     * Start of the UTC day {@code day}, as a JPA parameter that Hibernate will convert back
+     * to UTC midnight.
+     */
+    static LocalDateTime startOf(LocalDate day) {
+        return day.atStartOfDay(ZoneOffset.UTC).withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.AdminQueryRepository;
+import com.example.demo.repository.ChatFilter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * Writes chats straight from a database cursor to an output stream as NDJSON or CSV.
+ * Rows are encoded one at a time as they arrive, so memory use does not depend on how
+ * many chats are exported.
+ */
+@Service
+@RequiredArgsConstructor
+public class ChatExportService {
+
+    public static final String NDJSON = "ndjson";
+    public static final String CSV = "csv";
+
+    private static final String CSV_HEADER = "id,user_id,user_email,sentiment,mood_score,created_at,message,response\n";
+
+    private final AdminQueryRepository adminQueryRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    @PostConstruct
+    void init() {
+        readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    public void export(ChatFilter filter, String format, OutputStream out) throws IOException {
+        try {
+            if (CSV.equals(format)) {
+                exportCsv(filter, out);
+            } else {
+                exportNdjson(filter, out);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void exportNdjson(ChatFilter filter, OutputStream out) throws IOException {
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            readOnlyTransaction.executeWithoutResult(status -> adminQueryRepository.streamChats(filter, rs -> {
+                try {
+                    json.writeStartObject();
+                    json.writeNumberField("id", rs.getLong("id"));
+                    writeNullableNumber(json, "userId", rs.getObject("user_id", Long.class));
+                    json.writeStringField("userEmail", rs.getString("email"));
+                    json.writeStringField("sentiment", rs.getString("sentiment"));
+                    writeNullableNumber(json, "moodScore", rs.getObject("mood_score", Double.class));
+                    json.writeStringField("createdAt", isoTimestamp(rs));
+                    json.writeStringField("message", rs.getString("message"));
+                    json.writeStringField("response", rs.getString("response"));
+                    json.writeEndObject();
+                    json.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        }
+    }
+
+    private void exportCsv(ChatFilter filter, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        readOnlyTransaction.executeWithoutResult(status -> adminQueryRepository.streamChats(filter, rs -> {
+            try {
+                writer.write(Long.toString(rs.getLong("id")));
+                writer.write(',');
+                writer.write(String.valueOf(nullToEmpty(rs.getObject("user_id", Long.class))));
+                writer.write(',');
+                writeCsvField(writer, rs.getString("email"));
+                writer.write(',');
+                writeCsvField(writer, rs.getString("sentiment"));
+                writer.write(',');
+                writer.write(String.valueOf(nullToEmpty(rs.getObject("mood_score", Double.class))));
+                writer.write(',');
+                writeCsvField(writer, isoTimestamp(rs));
+                writer.write(',');
+                writeCsvField(writer, rs.getString("message"));
+                writer.write(',');
+                writeCsvField(writer, rs.getString("response"));
+                writer.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }));
+        writer.flush();
+    }
+
+    private static void writeNullableNumber(JsonGenerator json, String field, Number value) throws IOException {
+        json.writeFieldName(field);
+        if (value == null) {
+            json.writeNull();
+        } else if (value instanceof Long longValue) {
+            json.writeNumber(longValue);
+        } else {
+            json.writeNumber(value.doubleValue());
+        }
+    }
+
+    private static String isoTimestamp(ResultSet rs) throws SQLException {
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        return createdAt == null ? null : createdAt.toLocalDateTime().toString();
+    }
+
+    private static Object nullToEmpty(Object value) {
+        return value == null ? "" : value;
+    }
+
+    /**
+     * RFC 4180 quoting: fields containing a comma, quote or line break are wrapped in
+     * quotes with embedded quotes doubled.
+     */
+    static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.ChatPartitionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the monthly partitions of {@code chats} ahead of the clock and applies retention.
+ *
+ * Runs once the application is ready and then daily. Partitions are created
+ * {@code chat.partitions.months-ahead} months in advance so inserts never land in the
+ * default partition. With {@code chat.retention.months} above zero, months entirely older
+ * than that are detached (kept as standalone tables for archiving) or dropped, per
+ * {@code chat.retention.mode}; either is a catalog operation, not a DELETE over the rows.
+ * The daily rollups are left alone, so dashboards keep the history of expired months.
+ *
+ * A detached month loses its foreign key to {@code users} and is no longer reached by
+ * chat reads, but it still holds personal data: {@link UserPurgeService} deletes a purged
+ * user's rows from every archived month table too, and subtracts them from the rollups as
+ * it does for live chats. Archives moved out of the schema are beyond its reach.
+ *
+ * Nodes coordinate through a PostgreSQL advisory lock; whoever loses skips the run.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ChatPartitionMaintenance {
+
+    public static final String DETACH = "detach";
+    public static final String DROP = "drop";
+
+    @Value("${chat.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    @Value("${chat.retention.months:0}")
+    private int retentionMonths;
+
+    @Value("${chat.retention.mode:detach}")
+    private String retentionMode;
+
+    private final ChatPartitionRepository chatPartitionRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${chat.partitions.maintenance-cron:0 15 3 * * *}", zone = "UTC")
+    public void maintain() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!chatPartitionRepository.tryLockMaintenance()) {
+                    log.debug("Chat partition maintenance running elsewhere; skipping");
+                    return;
+                }
+                createAhead();
+                applyRetention();
+            });
+        } catch (RuntimeException e) {
+            // A month can only be added while the default partition holds none of its rows
+            log.error("Chat partition maintenance failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Attached months, oldest first, and the retention currently applied.
+     */
+    public Map<String, Object> getStatus() {
+        List<YearMonth> months = chatPartitionRepository.findMonths();
+        return Map.of(
+                "partitions", months.stream().map(ChatPartitionRepository::name).toList(),
+                "monthsAhead", monthsAhead,
+                "retentionMonths", retentionMonths,
+                "retentionMode", retentionMode);
+    }
+
+    private void createAhead() {
+        // created_at is written in UTC (hibernate.jdbc.time_zone)
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        List<YearMonth> existing = chatPartitionRepository.findMonths();
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            if (!existing.contains(month)) {
+                chatPartitionRepository.create(month);
+                log.info("Created chat partition {}", ChatPartitionRepository.name(month));
+            }
+        }
+    }
+
+    private void applyRetention() {
+        if (retentionMonths <= 0) {
+            return;
+        }
+        YearMonth oldestKept = YearMonth.now(ZoneOffset.UTC).minusMonths(retentionMonths);
+        for (YearMonth month : chatPartitionRepository.findMonths()) {
+            if (!month.isBefore(oldestKept)) {
+                break;
+            }
+            if (DROP.equals(retentionMode)) {
+                chatPartitionRepository.drop(month);
+                log.info("Dropped expired chat partition {}", ChatPartitionRepository.name(month));
+            } else {
+                chatPartitionRepository.detach(month);
+                log.info("Detached expired chat partition {}", ChatPartitionRepository.name(month));
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Chat;
+import com.example.demo.model.ChatDailyRollup;
+import com.example.demo.repository.ChatRollupRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintains the per-day, per-sentiment chat rollups. Every change is applied inside the
+ * transaction that saves or deletes the chats, so the rollups stay exact; dashboards then
+ * read O(days) rows instead of scanning chats. Days are UTC days, see {@link ChatDays}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ChatRollupService {
+
+    private final ChatRollupRepository chatRollupRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Seeds the rollups from existing chats the first time the table is empty. Runs while
+     * the context starts, before the server takes traffic.
+     */
+    @PostConstruct
+    void backfillIfEmpty() {
+        if (chatRollupRepository.count() > 0) {
+            return;
+        }
+        Integer seeded = transactionTemplate.execute(status -> chatRollupRepository.backfill());
+        log.info("Backfilled {} chat rollup rows", seeded);
+    }
+
+    /**
+     * Adds a saved chat. Must be called inside the saving transaction.
+     */
+    public void recordSaved(Chat chat) {
+        chatRollupRepository.add(
+                ChatDays.of(chat.getCreatedAt()),
+                sentimentOf(chat.getSentiment()),
+                1,
+                chat.getMoodScore() == null ? 0.0 : chat.getMoodScore());
+    }
+
+    /**
+     * Adds a batch of saved chats with one upsert per day and sentiment rather than one
+     * per chat. Must be called inside the saving transaction.
+     */
+    public void recordSaved(List<Chat> chats) {
+        Map<ChatDailyRollup.Key, double[]> totals = new HashMap<>();
+        for (Chat chat : chats) {
+            double[] total = totals.computeIfAbsent(
+                    new ChatDailyRollup.Key(ChatDays.of(chat.getCreatedAt()), sentimentOf(chat.getSentiment())),
+                    key -> new double[2]);
+            total[0]++;
+            total[1] += chat.getMoodScore() == null ? 0.0 : chat.getMoodScore();
+        }
+        totals.forEach((key, total) ->
+                chatRollupRepository.add(key.getDate(), key.getSentiment(), (long) total[0], total[1]));
+    }
+
+    /**
+     * Removes a chat that is about to be deleted. Must be called inside the deleting
+     * transaction, before the delete.
+     */
+    public void beforeChatDeleted(Long chatId) {
+        chatRollupRepository.subtractChat(chatId);
+    }
+
+    public void beforeOwnedChatDeleted(Long chatId, Long userId) {
+        chatRollupRepository.subtractOwnedChat(chatId, userId);
+    }
+
+    public long getTotalChats() {
+        return chatRollupRepository.getTotalChats();
+    }
+
+    public List<Object[]> getSentimentDistribution() {
+        return chatRollupRepository.getSentimentDistribution();
+    }
+
+    /**
+     * One entry per day and sentiment for the last {@code days} days, oldest first.
+     */
+    public List<Map<String, Object>> getDailyActivity(int days) {
+        List<ChatDailyRollup> rollups = chatRollupRepository.findSince(ChatDays.today().minusDays(days - 1L));
+
+        List<Map<String, Object>> activity = new ArrayList<>(rollups.size());
+        for (ChatDailyRollup rollup : rollups) {
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("date", rollup.getId().getDate());
+            entry.put("sentiment", rollup.getId().getSentiment());
+            entry.put("chats", rollup.getChatCount());
+            entry.put("averageMoodScore", rollup.getChatCount() == 0
+                    ? 0.0
+                    : rollup.getMoodScoreSum() / rollup.getChatCount());
+            activity.add(entry);
+        }
+        return activity;
+    }
+
+    private static String sentimentOf(String sentiment) {
+        return sentiment == null ? SentimentEngine.NEUTRAL : sentiment;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ChatSearchHit;
+import com.example.demo.dto.PagedResponse;
+import com.example.demo.repository.ChatFilter;
+import com.example.demo.repository.ChatSearchRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Full-text search over one user's chat history, ranked by relevance and served from the
+ * (user_id, search_vector) GIN index.
+ */
+@Service
+@RequiredArgsConstructor
+public class ChatSearchService {
+
+    @Value("${chat.search.default-page-size:20}")
+    private int defaultPageSize;
+
+    @Value("${chat.search.max-page-size:50}")
+    private int maxPageSize;
+
+    @Value("${chat.search.max-query-length:200}")
+    private int maxQueryLength;
+
+    @Value("${chat.search.highlight.start:<mark>}")
+    private String highlightStart;
+
+    @Value("${chat.search.highlight.stop:</mark>}")
+    private String highlightStop;
+
+    @Value("${chat.search.highlight.max-fragments:2}")
+    private int maxFragments;
+
+    private final ChatSearchRepository chatSearchRepository;
+
+    private String headlineOptions;
+
+    @PostConstruct
+    void init() {
+        // Passed to ts_headline; with MaxFragments=0 it returns the start of the text instead
+        headlineOptions = "StartSel=\"" + highlightStart + "\", StopSel=\"" + highlightStop + "\", "
+                + "MaxFragments=" + maxFragments + ", MaxWords=20, MinWords=5, FragmentDelimiter=\" … \"";
+    }
+
+    public PagedResponse<ChatSearchHit> search(Long userId, String query, String sentiment,
+                                               LocalDate from, LocalDate to, int page, Integer size) {
+        if (query == null || query.isBlank()) {
+            throw new RuntimeException("Search query is required");
+        }
+        if (query.length() > maxQueryLength) {
+            throw new RuntimeException("Search query is too long");
+        }
+        int pageSize = size == null || size <= 0 ? defaultPageSize : Math.min(size, maxPageSize);
+        int pageNumber = Math.max(page, 0);
+        ChatFilter filter = new ChatFilter(userId, sentiment, from, to);
+
+        List<ChatSearchHit> hits = chatSearchRepository.search(filter, query, headlineOptions, pageNumber, pageSize);
+        long total = pageNumber == 0 && hits.size() < pageSize
+                ? hits.size()
+                : chatSearchRepository.count(filter, query);
+        return PagedResponse.<ChatSearchHit>builder()
+                .items(hits)
+                .page(pageNumber)
+                .size(pageSize)
+                .totalElements(total)
+                .totalPages((int) ((total + pageSize - 1) / pageSize))
+                .build();
+    }
+}
@@ -1,17 +1,37 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.ChatHistoryPage;
 import com.example.demo.dto.ChatRequest;
 import com.example.demo.dto.ChatResponse;
 import com.example.demo.model.Chat;
-import com.example.demo.model.User;
+import com.example.demo.repository.ChatHistoryRow;
 import com.example.demo.repository.ChatRepository;
 import com.example.demo.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -22,45 +42,176 @@ public class ChatService {
     private final ChatRepository chatRepository;
     private final UserRepository userRepository;
     private final OpenAIService openAIService;
+    private final SentimentEngine sentimentEngine;
+    private final ChatRollupService chatRollupService;
+    private final MoodTimelineService moodTimelineService;
+    private final ChatWriteBehind chatWriteBehind;
+    private final CompletionPool completionPool;
 
-    @Transactional
-    public ChatResponse sendMessage(ChatRequest request, String userEmail) {
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
 
-        // Pass user ID for conversation context
-        String aiResponse = openAIService.getChatResponse(
-                request.getMessage(),
-                user.getId().toString()  // Important: Pass user ID
-        );
+    // Generations currently waiting on Groq; none of them hold a pooled connection
+    private final AtomicInteger generationsInFlight = new AtomicInteger();
 
-        String sentiment = openAIService.analyzeSentiment(request.getMessage());
+    @Value("${chat.history.default-page-size:20}")
+    private int defaultPageSize;
+
+    @Value("${chat.history.max-page-size:100}")
+    private int maxPageSize;
+
+    @Value("${chat.history.summary-length:160}")
+    private int summaryLength;
+
+    private Timer persistTimer;
+    private Map<String, Counter> sentimentCounters;
+
+    @PostConstruct
+    void init() {
+        persistTimer = Timer.builder("chat.persist")
+                .description("Write transaction saving a chat turn")
+                .register(meterRegistry);
+        sentimentCounters = Map.of(
+                SentimentEngine.POSITIVE, sentimentCounter(SentimentEngine.POSITIVE),
+                SentimentEngine.NEGATIVE, sentimentCounter(SentimentEngine.NEGATIVE),
+                SentimentEngine.NEUTRAL, sentimentCounter(SentimentEngine.NEUTRAL));
+        Gauge.builder("chat.generations.in_flight", generationsInFlight, AtomicInteger::get)
+                .description("Authenticated generations waiting on Groq")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the send pipeline so no pooled connection is held while Groq generates: the
+     * user comes from the security principal, the LLM call runs with no transaction open,
+     * and a short write transaction on {@link CompletionPool} persists the turn.
+     */
+    public CompletableFuture<ChatResponse> sendMessage(ChatRequest request, Long userId) {
+        String requestId = PipelineEvents.currentRequestId();
+        String sentiment = analyzeSentiment(request.getMessage(), requestId);
+
+        generationsInFlight.incrementAndGet();
+        return openAIService.getChatResponseAsync(
+                        request.getMessage(), userId.toString(), request.getMode(), sentiment)
+                .whenComplete((aiResponse, e) -> generationsInFlight.decrementAndGet())
+                .thenApplyAsync(aiResponse -> mapToChatResponse(persistChat(userId, request, sentiment, aiResponse, requestId)),
+                        completionPool.executor());
+    }
+
+    public CompletableFuture<ChatResponse> sendAnonymousMessage(ChatRequest request) {
+        String sentiment = analyzeSentiment(request.getMessage(), PipelineEvents.currentRequestId());
+
+        // Anonymous users get no conversation memory and nothing is saved to the database
+        return openAIService.getChatResponseAsync(request.getMessage(), null, request.getMode(), sentiment)
+                .thenApply(aiResponse -> buildAnonymousResponse(request, sentiment, aiResponse));
+    }
+
+    /**
+     * Streaming counterpart of {@link #sendMessage}: tokens are pushed to {@code emitter} as
+     * "token" events while Groq generates them, and the chat row is only persisted once the
+     * stream has ended. The final "done" event carries the saved {@link ChatResponse}.
+     * Events are written by {@link CompletionPool}, in order, never by a Groq I/O thread.
+     */
+    public void streamMessage(ChatRequest request, Long userId, SseEmitter emitter) {
+        String requestId = PipelineEvents.currentRequestId();
+        String sentiment = analyzeSentiment(request.getMessage(), requestId);
+        TokenRelay relay = new TokenRelay(emitter);
+
+        generationsInFlight.incrementAndGet();
+        openAIService.streamChatResponse(
+                        request.getMessage(),
+                        userId.toString(),
+                        request.getMode(),
+                        sentiment,
+                        relay)
+                .whenComplete((aiResponse, e) -> generationsInFlight.decrementAndGet())
+                .thenApplyAsync(aiResponse -> mapToChatResponse(persistChat(userId, request, sentiment, aiResponse, requestId)),
+                        completionPool.executor())
+                .whenComplete((response, e) -> relay.finish(() -> finishStream(emitter, response, e, requestId)));
+    }
+
+    public void streamAnonymousMessage(ChatRequest request, SseEmitter emitter) {
+        String requestId = PipelineEvents.currentRequestId();
+        String sentiment = analyzeSentiment(request.getMessage(), requestId);
+        TokenRelay relay = new TokenRelay(emitter);
+
+        openAIService.streamChatResponse(
+                        request.getMessage(),
+                        null,
+                        request.getMode(),
+                        sentiment,
+                        relay)
+                .thenApply(aiResponse -> buildAnonymousResponse(request, sentiment, aiResponse))
+                .whenComplete((response, e) -> relay.finish(() -> finishStream(emitter, response, e, requestId)));
+    }
+
+    public int getGenerationsInFlight() {
+        return generationsInFlight.get();
+    }
+
+    private Chat persistChat(Long userId, ChatRequest request, String sentiment, String aiResponse,
+                             String requestId) {
         Double moodScore = openAIService.calculateMoodScore(sentiment);
 
         Chat chat = new Chat();
-        chat.setUser(user);
         chat.setMessage(request.getMessage());
         chat.setResponse(aiResponse);
         chat.setSentiment(sentiment);
         chat.setMoodScore(moodScore);
         chat.setIsAnonymous(false);
 
-        Chat savedChat = chatRepository.save(chat);
+        PipelineEvents.PersistenceEvent event = new PipelineEvents.PersistenceEvent();
+        event.begin();
+
+        Chat saved;
+        if (chatWriteBehind.enqueue(chat, userId)) {
+            // Written (and the timeline invalidated) by the write-behind batch
+            saved = chat;
+        } else {
+            saved = persistTimer.record(() -> transactionTemplate.execute(status -> {
+                // A reference is enough to set the foreign key; the user row is never loaded
+                chat.setUser(userRepository.getReferenceById(userId));
+                Chat persisted = chatRepository.save(chat);
+                chatRollupService.recordSaved(persisted);
+                return persisted;
+            }));
+            moodTimelineService.invalidate(userId);
+        }
 
-        return mapToChatResponse(savedChat);
+        if (event.shouldCommit()) {
+            event.requestId = requestId;
+            event.chatId = saved.getId();
+            event.storedLength = saved.getMessage().length() + (aiResponse == null ? 0 : aiResponse.length());
+            event.commit();
+        }
+        return saved;
     }
-    @Transactional
-    public ChatResponse sendAnonymousMessage(ChatRequest request) {
-        // Get AI response (pass null for anonymous users - no conversation memory)
-        String aiResponse = openAIService.getChatResponse(request.getMessage(), null);  // ✅ FIXED
 
-        // Analyze sentiment
-        String sentiment = openAIService.analyzeSentiment(request.getMessage());
+    private String analyzeSentiment(String message, String requestId) {
+        PipelineEvents.SentimentEvent event = new PipelineEvents.SentimentEvent();
+        event.begin();
 
-        // Calculate mood score
+        String label = sentimentEngine.analyze(message).label();
+        sentimentCounters.get(label).increment();
+
+        if (event.shouldCommit()) {
+            event.requestId = requestId;
+            event.messageLength = message.length();
+            event.label = label;
+            event.commit();
+        }
+        return label;
+    }
+
+    private Counter sentimentCounter(String label) {
+        return Counter.builder("chat.sentiment")
+                .description("Chat messages by detected sentiment")
+                .tag("label", label)
+                .register(meterRegistry);
+    }
+
+    private ChatResponse buildAnonymousResponse(ChatRequest request, String sentiment, String aiResponse) {
         Double moodScore = openAIService.calculateMoodScore(sentiment);
 
-        // For anonymous chats, we don't save to database
         return ChatResponse.builder()
                 .message(request.getMessage())
                 .response(aiResponse)
@@ -69,32 +220,106 @@ public class ChatService {
                 .build();
     }
 
-    public List<ChatResponse> getChatHistory(String userEmail) {
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    private void sendToken(SseEmitter emitter, String token) throws IOException {
+        // Tokens are JSON-wrapped so leading whitespace survives SSE parsing
+        emitter.send(SseEmitter.event()
+                .name("token")
+                .data(Map.of("content", token), MediaType.APPLICATION_JSON));
+    }
 
-        List<Chat> chats = chatRepository.findByUserIdOrderByCreatedAtDesc(user.getId());
+    private void finishStream(SseEmitter emitter, ChatResponse response, Throwable error, String requestId) {
+        PipelineEvents.SerializationEvent event = new PipelineEvents.SerializationEvent();
+        event.begin();
+        try {
+            if (error == null) {
+                emitter.send(SseEmitter.event()
+                        .name("done")
+                        .data(response, MediaType.APPLICATION_JSON));
+            } else {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause()
+                        : error;
+                log.warn("Chat stream {} aborted: {}", requestId, cause.getMessage());
+                emitter.send(SseEmitter.event()
+                        .name("error")
+                        .data(Map.of("message", String.valueOf(cause.getMessage())), MediaType.APPLICATION_JSON));
+            }
+            emitter.complete();
+        } catch (Exception e) {
+            emitter.completeWithError(e);
+        }
 
-        return chats.stream()
-                .map(this::mapToChatResponse)
-                .collect(Collectors.toList());
+        if (event.shouldCommit()) {
+            event.requestId = requestId;
+            event.kind = error == null ? "sse-done" : "sse-error";
+            event.payloadType = error == null ? ChatResponse.class.getSimpleName() : "error";
+            event.commit();
+        }
     }
 
-    public void deleteChat(Long chatId, String userEmail) {
-        Chat chat = chatRepository.findById(chatId)
-                .orElseThrow(() -> new RuntimeException("Chat not found"));
+    /**
+     * The newest {@code chat.history.max-page-size} chats, newest first; older ones are
+     * reached through {@link #getChatHistoryPage}.
+     */
+    public List<ChatResponse> getChatHistory(Long userId) {
+        return getChatHistoryPage(userId, null, maxPageSize, false).getItems();
+    }
 
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    /**
+     * One page of history, newest first. {@code cursor} is the {@code nextCursor} of the
+     * previous page or {@code null} for the first one; {@code size} is capped at the
+     * configured maximum. In summary mode both texts are truncated by the database.
+     */
+    public ChatHistoryPage getChatHistoryPage(Long userId, String cursor, Integer size, boolean summary) {
+        int pageSize = size == null || size <= 0 ? defaultPageSize : Math.min(size, maxPageSize);
+        int textLength = summary ? summaryLength : Integer.MAX_VALUE;
+        // One extra row tells whether another page exists
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
 
-        if (!chat.getUser().getId().equals(user.getId())) {
-            throw new RuntimeException("Unauthorized to delete this chat");
+        List<ChatHistoryRow> rows;
+        if (cursor == null || cursor.isEmpty()) {
+            rows = chatRepository.findHistoryPage(userId, textLength, limit);
+        } else {
+            HistoryCursor position = HistoryCursor.decode(cursor);
+            rows = chatRepository.findHistoryPageBefore(
+                    userId, textLength, position.createdAt(), position.id(), limit);
         }
 
-        chatRepository.delete(chat);
+        boolean hasMore = rows.size() > pageSize;
+        List<ChatHistoryRow> page = hasMore ? rows.subList(0, pageSize) : rows;
+        ChatHistoryRow last = page.isEmpty() ? null : page.get(page.size() - 1);
+
+        return ChatHistoryPage.builder()
+                .items(page.stream().map(this::mapToChatResponse).collect(Collectors.toList()))
+                .nextCursor(hasMore ? new HistoryCursor(last.createdAt(), last.id()).encode() : null)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    public void deleteChat(Long chatId, Long userId) {
+        // Ownership is part of the delete itself, so another user's chat is simply not found
+        Integer deleted = transactionTemplate.execute(status -> {
+            chatRollupService.beforeOwnedChatDeleted(chatId, userId);
+            return chatRepository.deleteByIdAndUserId(chatId, userId);
+        });
+        if (deleted == null || deleted == 0) {
+            throw new RuntimeException("Chat not found");
+        }
+        moodTimelineService.invalidate(userId);
     }
 
-    private ChatResponse mapToChatResponse(Chat chat) {
+    ChatResponse mapToChatResponse(ChatHistoryRow row) {
+        return ChatResponse.builder()
+                .id(row.id())
+                .message(row.message())
+                .response(row.response())
+                .sentiment(row.sentiment())
+                .moodScore(row.moodScore())
+                .createdAt(row.createdAt())
+                .build();
+    }
+
+    ChatResponse mapToChatResponse(Chat chat) {
         return ChatResponse.builder()
                 .id(chat.getId())
                 .message(chat.getMessage())
@@ -104,4 +329,74 @@ public class ChatService {
                 .createdAt(chat.getCreatedAt())
                 .build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Writes one stream's events on {@link CompletionPool}, one at a time and in arrival
+     * order, so a slow client holds a completion thread instead of a Groq I/O thread.
+     * Once a write fails, the next token throws to abort the upstream read instead of
+     * generating into the void.
+     */
+    private final class TokenRelay implements Consumer<String> {
+
+        private final SseEmitter emitter;
+        // Last queued write; each one starts after its predecessor
+        private CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);
+        private volatile IOException clientGone;
+
+        private TokenRelay(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        @Override
+        public void accept(String token) {
+            IOException failure = clientGone;
+            if (failure != null) {
+                throw new UncheckedIOException(failure);
+            }
+            then(() -> {
+                if (clientGone == null) {
+                    try {
+                        sendToken(emitter, token);
+                    } catch (IOException e) {
+                        clientGone = e;
+                    }
+                }
+            });
+        }
+
+        /**
+         * Runs {@code last} after every token queued so far has been written.
+         */
+        private void finish(Runnable last) {
+            then(last);
+        }
+
+        private synchronized void then(Runnable write) {
+            tail = tail.thenRunAsync(write, completionPool.executor());
+        }
+    }
+
+    /**
+     * Position of the last row of a page. Encoded as URL-safe Base64 so clients treat it
+     * as opaque.
+     */
+    record HistoryCursor(LocalDateTime createdAt, Long id) {
+
+        String encode() {
+            String raw = createdAt + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static HistoryCursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.indexOf('|');
+                return new HistoryCursor(
+                        LocalDateTime.parse(raw.substring(0, separator)),
+                        Long.valueOf(raw.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Invalid cursor");
+            }
+        }
+    }
+}
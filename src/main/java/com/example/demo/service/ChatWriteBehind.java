@@ -0,0 +1,243 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Chat;
+import com.example.demo.model.User;
+import com.example.demo.repository.ChatWriteRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional write-behind persistence for chat turns ({@code chat.write-behind.enabled}).
+ *
+ * Accepted chats get their id and creation time immediately, so the response can carry
+ * both, and wait in a bounded queue. A single writer thread drains the queue into batches
+ * of up to {@code batch-size} rows, waiting at most {@code max-delay-ms} for a batch to
+ * fill, and saves each batch in one transaction: one JDBC batch insert plus one rollup
+ * upsert per day and sentiment. Ids come from {@code chats_id_seq} a block at a time,
+ * so a busy node calls the sequence once per 50 chats.
+ *
+ * A queued chat is not yet visible to history or analytics reads; conversation memory is
+ * unaffected because it lives in {@link ConversationStore}. When the queue stays full for
+ * {@code offer-timeout-ms}, or after shutdown has begun, {@link #enqueue} returns false
+ * and the caller saves synchronously, so load beyond the writer's pace slows requests
+ * down instead of growing the queue or losing chats. Shutdown stops intake and drains
+ * the queue before the data source closes.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ChatWriteBehind {
+
+    @Value("${chat.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${chat.write-behind.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${chat.write-behind.batch-size:50}")
+    private int batchSize;
+
+    @Value("${chat.write-behind.max-delay-ms:50}")
+    private long maxDelayMs;
+
+    @Value("${chat.write-behind.offer-timeout-ms:100}")
+    private long offerTimeoutMs;
+
+    @Value("${chat.write-behind.shutdown-timeout-seconds:30}")
+    private long shutdownTimeoutSeconds;
+
+    private final ChatWriteRepository chatWriteRepository;
+    private final ChatRollupService chatRollupService;
+    private final MoodTimelineService moodTimelineService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private BlockingQueue<Chat> queue;
+    private Thread writer;
+    private volatile boolean accepting;
+
+    // Current id block (nextId..maxId], guarded by this
+    private long nextId;
+    private long maxId;
+
+    private Timer flushTimer;
+    private DistributionSummary batchRows;
+    private Counter overflowCounter;
+    private Counter droppedCounter;
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        flushTimer = Timer.builder("chat.write_behind.flush")
+                .description("Transaction writing one batch of queued chats")
+                .register(meterRegistry);
+        batchRows = DistributionSummary.builder("chat.write_behind.batch.size")
+                .description("Chats written per batch")
+                .register(meterRegistry);
+        overflowCounter = Counter.builder("chat.write_behind.overflow")
+                .description("Chats saved synchronously because the queue was full or closed")
+                .register(meterRegistry);
+        droppedCounter = Counter.builder("chat.write_behind.dropped")
+                .description("Queued chats that could not be written")
+                .register(meterRegistry);
+        Gauge.builder("chat.write_behind.queue.depth", queue, BlockingQueue::size)
+                .description("Chats waiting to be written")
+                .register(meterRegistry);
+
+        accepting = true;
+        writer = new Thread(this::run, "chat-write-behind");
+        writer.start();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Assigns an id and creation time to {@code chat} and queues it for {@code userId}.
+     * Returns false, leaving the chat unsaved and without an id, when write-behind is off,
+     * shutting down, or the queue stayed full; the caller then saves it itself.
+     */
+    public boolean enqueue(Chat chat, Long userId) {
+        if (!enabled || !accepting) {
+            return false;
+        }
+        User owner = new User();
+        owner.setId(userId);
+        chat.setUser(owner);
+        chat.setId(nextId());
+        chat.setCreatedAt(LocalDateTime.now());
+
+        boolean queued;
+        try {
+            queued = queue.offer(chat, offerTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued = false;
+        }
+        if (!queued) {
+            // The reserved id is simply skipped
+            chat.setId(null);
+            chat.setUser(null);
+            overflowCounter.increment();
+        }
+        return queued;
+    }
+
+    public int getQueueDepth() {
+        return queue == null ? 0 : queue.size();
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        accepting = false;
+        writer.join(TimeUnit.SECONDS.toMillis(shutdownTimeoutSeconds));
+        if (writer.isAlive()) {
+            log.warn("Chat write-behind did not drain within {}s; {} chats still queued",
+                    shutdownTimeoutSeconds, queue.size());
+        }
+    }
+
+    private synchronized long nextId() {
+        if (nextId >= maxId) {
+            maxId = chatWriteRepository.nextIdBlock();
+            // Ids below 1 in the sequence's first block are never used by Hibernate either
+            nextId = Math.max(maxId - Chat.ID_ALLOCATION_SIZE, 0);
+        }
+        return ++nextId;
+    }
+
+    private void run() {
+        List<Chat> batch = new ArrayList<>(batchSize);
+        while (accepting || !queue.isEmpty()) {
+            try {
+                Chat first = queue.poll(maxDelayMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0 || !accepting) {
+                        break;
+                    }
+                    Chat next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                // Only shutdown stops the writer, and it does so by closing intake
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Chat write-behind batch failed", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Chat> batch) {
+        flushTimer.record(() -> {
+            try {
+                save(batch);
+            } catch (RuntimeException e) {
+                // One bad row (say, its user was deleted meanwhile) must not take the rest down
+                log.warn("Batch of {} chats failed ({}); retrying one by one", batch.size(), e.getMessage());
+                for (Chat chat : batch) {
+                    try {
+                        save(List.of(chat));
+                    } catch (RuntimeException rowError) {
+                        droppedCounter.increment();
+                        log.error("Dropping chat {} for user {}: {}",
+                                chat.getId(), chat.getUser().getId(), rowError.getMessage());
+                    }
+                }
+            }
+        });
+        batchRows.record(batch.size());
+
+        Set<Long> users = new LinkedHashSet<>();
+        for (Chat chat : batch) {
+            users.add(chat.getUser().getId());
+        }
+        users.forEach(moodTimelineService::invalidate);
+    }
+
+    private void save(List<Chat> chats) {
+        transactionTemplate.executeWithoutResult(status -> {
+            chatWriteRepository.insertAll(chats);
+            chatRollupService.recordSaved(chats);
+        });
+    }
+}
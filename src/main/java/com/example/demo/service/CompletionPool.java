@@ -0,0 +1,70 @@
+package com.example.demo.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the work that follows a Groq reply: saving the chat, updating conversation memory
+ * and writing SSE events. {@link GroqClient}'s few I/O threads then only do I/O; a JDBC
+ * round trip or a slow client on one of them would stall every Groq call it serves.
+ *
+ * {@link AuthService} uses it the same way for the database writes that follow a
+ * {@link PasswordHasher} hash, so BCrypt threads never wait on a connection.
+ *
+ * The pool is bounded. Once its queue is full, or after shutdown has begun, the completing
+ * thread runs the task itself: intake from Groq slows down, but no stage is ever dropped,
+ * so no request is left waiting on a future or emitter that never completes.
+ */
+@Component
+@RequiredArgsConstructor
+public class CompletionPool {
+
+    @Value("${chat.completion.threads:16}")
+    private int threads;
+
+    @Value("${chat.completion.queue-capacity:1000}")
+    private int queueCapacity;
+
+    private final MeterRegistry meterRegistry;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(
+                threads, threads,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "chat-completion-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                // Unlike CallerRunsPolicy, also runs the task once the pool is shut down
+                (task, pool) -> task.run());
+        Gauge.builder("chat.completion.queue.depth", executor, pool -> pool.getQueue().size())
+                .description("Tasks waiting for a chat completion thread")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    public Executor executor() {
+        return executor;
+    }
+}
@@ -0,0 +1,322 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.ChatRepository;
+import com.example.demo.repository.ConversationSummaryRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Bounded per-user conversation memory.
+ *
+ * Entries are capped in number and expire after an idle period. A user whose entry was
+ * evicted (or who has not chatted since this node started) is lazily rehydrated from the
+ * last turns stored in {@link ChatRepository}.
+ *
+ * With compaction enabled, turns pushed out of the recent window (by count, or because
+ * the retained turns passed the token threshold) are folded into a rolling summary by
+ * {@link ConversationSummarizer} instead of being dropped. Folding runs asynchronously
+ * after the reply, at most once at a time per user; until it finishes, the pushed-out
+ * turns stay available to prompts. Each new summary is saved to
+ * {@link ConversationSummaryRepository} on {@link CompletionPool} and read back on
+ * rehydration, where restored turns beyond the token threshold are left out because the
+ * summary most likely covers them already. Clearing the conversation deletes the summary.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ConversationStore {
+
+    @Value("${chat.memory.max-users:10000}")
+    private long maxUsers;
+
+    @Value("${chat.memory.idle-ttl-minutes:60}")
+    private long idleTtlMinutes;
+
+    @Value("${chat.memory.max-turns:5}")
+    private int maxTurns;
+
+    @Value("${chat.memory.compaction.enabled:true}")
+    private boolean compactionEnabled;
+
+    @Value("${chat.memory.compaction.token-threshold:800}")
+    private int compactionTokenThreshold;
+
+    @Value("${chat.memory.compaction.keep-recent-turns:2}")
+    private int keepRecentTurns;
+
+    // Turns waiting to be folded are capped so a failing summarizer cannot grow memory
+    @Value("${chat.memory.compaction.max-pending-turns:20}")
+    private int maxPendingTurns;
+
+    private final ChatRepository chatRepository;
+    private final ConversationSummaryRepository conversationSummaryRepository;
+    private final ConversationSummarizer conversationSummarizer;
+    private final CompletionPool completionPool;
+    private final TransactionTemplate transactionTemplate;
+
+    private Cache<Long, Conversation> conversations;
+
+    // Remembers explicit clears so a later rehydration does not resurrect the old context
+    private Cache<Long, LocalDateTime> clearedAt;
+
+    @PostConstruct
+    void init() {
+        conversations = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterAccess(Duration.ofMinutes(idleTtlMinutes))
+                .recordStats()
+                .build();
+        clearedAt = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(Duration.ofDays(1))
+                .build();
+    }
+
+    /**
+     * Returns the summary and retained turns of {@code userId}, oldest first.
+     */
+    public Snapshot snapshot(Long userId) {
+        return conversations.get(userId, this::rehydrate).snapshot();
+    }
+
+    public void append(Long userId, String userMessage, String assistantResponse) {
+        Conversation conversation = conversations.get(userId, this::rehydrate);
+        fold(userId, conversation, conversation.append(new Turn(userMessage, assistantResponse)));
+    }
+
+    public void clear(Long userId) {
+        clearedAt.put(userId, LocalDateTime.now());
+        conversations.put(userId, newConversation());
+        transactionTemplate.executeWithoutResult(status -> conversationSummaryRepository.deleteByUserId(userId));
+    }
+
+    /**
+     * Forgets {@code userId} entirely, for users that are being deleted. The stored
+     * summary goes with the user row.
+     */
+    public void evict(Long userId) {
+        conversations.invalidate(userId);
+        clearedAt.invalidate(userId);
+    }
+
+    public Map<String, Object> getStats() {
+        CacheStats cacheStats = conversations.stats();
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("entries", conversations.estimatedSize());
+        stats.put("hits", cacheStats.hitCount());
+        stats.put("misses", cacheStats.missCount());
+        stats.put("hitRate", cacheStats.hitRate());
+        stats.put("evictions", cacheStats.evictionCount());
+        stats.put("rehydrations", cacheStats.loadCount());
+        stats.put("averageRehydrationMillis", cacheStats.averageLoadPenalty() / 1_000_000.0);
+        return stats;
+    }
+
+    private Conversation rehydrate(Long userId) {
+        PageRequest lastTurns = PageRequest.of(0, maxTurns);
+        LocalDateTime since = clearedAt.getIfPresent(userId);
+        List<Object[]> rows = since == null
+                ? chatRepository.findRecentTurns(userId, lastTurns)
+                : chatRepository.findRecentTurnsSince(userId, since, lastTurns);
+
+        Conversation conversation = newConversation();
+        // Rows come newest first
+        for (int i = rows.size() - 1; i >= 0; i--) {
+            conversation.restore(new Turn((String) rows.get(i)[0], (String) rows.get(i)[1]));
+        }
+        if (compactionEnabled) {
+            conversationSummaryRepository.findById(userId)
+                    .ifPresent(stored -> conversation.restoreSummary(stored.getSummary()));
+        }
+        log.debug("Rehydrated {} turns for user {}", rows.size(), userId);
+        return conversation;
+    }
+
+    private Conversation newConversation() {
+        return compactionEnabled
+                ? new Conversation(maxTurns, compactionTokenThreshold, keepRecentTurns, maxPendingTurns)
+                : new Conversation(maxTurns, Integer.MAX_VALUE, maxTurns, 0);
+    }
+
+    /**
+     * Summarizes {@code pending} in the background and hands the result back to the
+     * conversation, which may start the next fold right away.
+     */
+    private void fold(Long userId, Conversation conversation, List<Turn> pending) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        CompletableFuture<String> summary;
+        try {
+            summary = conversationSummarizer.summarize(conversation.summary(), pending);
+        } catch (RuntimeException e) {
+            summary = CompletableFuture.failedFuture(e);
+        }
+        summary.whenCompleteAsync((updated, e) -> {
+            if (e != null) {
+                log.debug("Conversation summary for user {} failed: {}", userId, e.getMessage());
+                conversation.foldFailed();
+            } else {
+                List<Turn> next = conversation.folded(pending, updated);
+                store(userId, conversation, updated);
+                fold(userId, conversation, next);
+            }
+        }, completionPool.executor());
+    }
+
+    private void store(Long userId, Conversation conversation, String summary) {
+        // A conversation cleared or evicted meanwhile must not bring its summary back
+        if (conversations.getIfPresent(userId) != conversation) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    conversationSummaryRepository.upsert(userId, summary, LocalDateTime.now()));
+        } catch (RuntimeException e) {
+            // The summary still serves from memory; only a later rehydration misses it
+            log.warn("Could not store conversation summary for user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    /**
+     * One user message and the assistant's reply to it.
+     */
+    public record Turn(String userMessage, String assistantResponse) {
+
+        int estimatedTokens() {
+            return PromptAssembler.estimateTokens(userMessage) + PromptAssembler.estimateTokens(assistantResponse);
+        }
+    }
+
+    /**
+     * What a prompt can use: the rolling summary of older turns ({@code null} if there is
+     * none yet) and the turns after it, oldest first.
+     */
+    public record Snapshot(String summary, List<Turn> turns) {
+    }
+
+    private static final class Conversation {
+
+        private final int capacity;
+        private final int tokenThreshold;
+        private final int keepRecent;
+        private final int maxPending;
+
+        private final ArrayDeque<Turn> turns;
+        // Pushed out of the recent window but not yet in the summary
+        private final ArrayDeque<Turn> pending = new ArrayDeque<>();
+        private int retainedTokens;
+        private String summary;
+        private boolean folding;
+
+        private Conversation(int capacity, int tokenThreshold, int keepRecent, int maxPending) {
+            this.capacity = capacity;
+            this.tokenThreshold = tokenThreshold;
+            this.keepRecent = keepRecent;
+            this.maxPending = maxPending;
+            this.turns = new ArrayDeque<>(capacity);
+        }
+
+        /**
+         * Adds a turn without triggering a fold, for rehydration.
+         */
+        private synchronized void restore(Turn turn) {
+            if (turns.size() == capacity) {
+                retainedTokens -= turns.removeFirst().estimatedTokens();
+            }
+            turns.addLast(turn);
+            retainedTokens += turn.estimatedTokens();
+        }
+
+        /**
+         * Installs a stored summary after the turns were restored. Older restored turns
+         * above the token threshold are dropped rather than folded again.
+         */
+        private synchronized void restoreSummary(String storedSummary) {
+            summary = storedSummary;
+            while (retainedTokens > tokenThreshold && turns.size() > keepRecent) {
+                retainedTokens -= turns.removeFirst().estimatedTokens();
+            }
+        }
+
+        /**
+         * Adds a turn and returns the turns to fold now, or an empty list if none are
+         * pending or a fold is already running.
+         */
+        private synchronized List<Turn> append(Turn turn) {
+            turns.addLast(turn);
+            retainedTokens += turn.estimatedTokens();
+            while (turns.size() > capacity || (retainedTokens > tokenThreshold && turns.size() > keepRecent)) {
+                Turn oldest = turns.removeFirst();
+                retainedTokens -= oldest.estimatedTokens();
+                pending.addLast(oldest);
+            }
+            while (pending.size() > maxPending) {
+                pending.removeFirst();
+            }
+            return startFold();
+        }
+
+        /**
+         * Installs the summary covering {@code foldedTurns} and returns the next turns to
+         * fold, if more were pushed out meanwhile.
+         */
+        private synchronized List<Turn> folded(List<Turn> foldedTurns, String updatedSummary) {
+            summary = updatedSummary;
+            // Removed by identity: the same text can legitimately appear twice
+            Set<Turn> done = Collections.newSetFromMap(new IdentityHashMap<>());
+            done.addAll(foldedTurns);
+            pending.removeIf(done::contains);
+            folding = false;
+            return startFold();
+        }
+
+        private synchronized void foldFailed() {
+            // Pending turns stay for the next attempt, bounded by maxPending
+            folding = false;
+        }
+
+        private synchronized String summary() {
+            return summary;
+        }
+
+        private synchronized Snapshot snapshot() {
+            if (pending.isEmpty() && turns.isEmpty()) {
+                return new Snapshot(summary, Collections.emptyList());
+            }
+            List<Turn> all = new ArrayList<>(pending.size() + turns.size());
+            all.addAll(pending);
+            all.addAll(turns);
+            return new Snapshot(summary, all);
+        }
+
+        private List<Turn> startFold() {
+            if (folding || pending.isEmpty()) {
+                return Collections.emptyList();
+            }
+            folding = true;
+            return new ArrayList<>(pending);
+        }
+    }
+}
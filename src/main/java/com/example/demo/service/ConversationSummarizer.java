@@ -0,0 +1,114 @@
+package com.example.demo.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Folds conversation turns into a rolling summary with a Groq completion.
+ *
+ * Summaries are background work competing with chat traffic for {@link GroqClient}, so
+ * they get their own budget of {@code chat.memory.compaction.max-concurrent} calls and
+ * are skipped while fewer than {@code chat.memory.compaction.min-free-groq-permits} Groq
+ * permits are free or the circuit breaker is not closed. A summary never takes a
+ * half-open probe slot from a user. Skipped turns stay pending and are folded on a
+ * later reply.
+ */
+@Component
+@RequiredArgsConstructor
+public class ConversationSummarizer {
+
+    // Each text is cut to this many characters in the summarization prompt
+    private static final int MAX_TEXT_CHARS = 1500;
+
+    @Value("${chat.memory.compaction.summary-max-words:120}")
+    private int summaryMaxWords;
+
+    @Value("${chat.memory.compaction.max-concurrent:4}")
+    private int maxConcurrent;
+
+    @Value("${chat.memory.compaction.min-free-groq-permits:16}")
+    private int minFreeGroqPermits;
+
+    private final GroqClient groqClient;
+    private final MeterRegistry meterRegistry;
+
+    private Map<String, String> systemMessage;
+    private Semaphore slots;
+    private Counter succeeded;
+    private Counter failed;
+    private Counter skipped;
+
+    @PostConstruct
+    void init() {
+        systemMessage = Map.of("role", "system", "content",
+                "You maintain a running summary of a conversation between a user and Mood AI, "
+                        + "a mental wellness companion. Merge the new exchanges into the current summary. "
+                        + "Keep what the user shared about themselves (situation, feelings, people, "
+                        + "preferences, goals) and what Mood AI suggested or promised; drop small talk. "
+                        + "Write in the third person, at most " + summaryMaxWords + " words. "
+                        + "Reply with the summary only.");
+        slots = new Semaphore(maxConcurrent);
+        succeeded = compactionCounter("success");
+        failed = compactionCounter("failure");
+        skipped = compactionCounter("skipped");
+    }
+
+    /**
+     * Returns {@code summary} (may be {@code null}) updated with {@code turns}, oldest
+     * first. Fails when Groq cannot be reached or answers with nothing, and with
+     * {@link RejectedExecutionException} when the call is skipped to spare chat traffic.
+     */
+    public CompletableFuture<String> summarize(String summary, List<ConversationStore.Turn> turns) {
+        StringBuilder content = new StringBuilder();
+        content.append("Current summary:\n")
+                .append(summary == null || summary.isBlank() ? "(none yet)" : summary)
+                .append("\n\nNew exchanges:\n");
+        for (ConversationStore.Turn turn : turns) {
+            content.append("User: ").append(truncate(turn.userMessage())).append('\n');
+            content.append("Mood AI: ").append(truncate(turn.assistantResponse())).append('\n');
+        }
+
+        List<Map<String, String>> messages = List.of(
+                systemMessage,
+                Map.of("role", "user", "content", content.toString()));
+
+        if (!groqClient.isCircuitClosed() || groqClient.availablePermits() < minFreeGroqPermits) {
+            skipped.increment();
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Groq is busy; summary deferred"));
+        }
+        if (!slots.tryAcquire()) {
+            skipped.increment();
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Too many summaries in flight"));
+        }
+        return groqClient.complete(messages).handle((updated, e) -> {
+            slots.release();
+            if (e != null || updated == null || updated.isBlank()) {
+                failed.increment();
+                throw new IllegalStateException("Conversation summary not produced", e);
+            }
+            succeeded.increment();
+            return updated.strip();
+        });
+    }
+
+    private Counter compactionCounter(String outcome) {
+        return Counter.builder("chat.memory.compactions")
+                .description("Rolling conversation summaries by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static String truncate(String text) {
+        return text.length() <= MAX_TEXT_CHARS ? text : text.substring(0, MAX_TEXT_CHARS) + "…";
+    }
+}
@@ -0,0 +1,461 @@
+package com.example.demo.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Non-blocking client for the Groq chat completions API.
+ *
+ * One shared {@link HttpClient} keeps connections alive (HTTP/2 when the server offers it)
+ * and a semaphore caps the number of in-flight upstream calls, so a burst of chat traffic
+ * is rejected early instead of piling up sockets. Every call carries its own deadline.
+ *
+ * Calls go through the "groq" circuit breaker: once the failure or slow-call rate over the
+ * sliding window crosses its threshold, calls fail immediately with
+ * {@link CallNotPermittedException} until a half-open probe succeeds again.
+ *
+ * Metrics: {@code groq.request} times every call by type, outcome and HTTP status,
+ * {@code groq.rejected} counts calls refused before reaching Groq, and {@code groq.tokens}
+ * records prompt and completion token counts from the response {@code usage} block.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class GroqClient {
+
+    private static final String MODEL = "llama-3.3-70b-versatile";
+    private static final int MAX_TOKENS = 500;
+    private static final double TEMPERATURE = 0.9;
+
+    private static final String STREAM_DATA_PREFIX = "data:";
+    private static final String STREAM_DONE = "[DONE]";
+
+    @Value("${groq.api.key}")
+    private String apiKey;
+
+    @Value("${groq.api.url}")
+    private String apiUrl;
+
+    @Value("${groq.http.connect-timeout-ms:3000}")
+    private long connectTimeoutMs;
+
+    @Value("${groq.http.request-timeout-ms:20000}")
+    private long requestTimeoutMs;
+
+    @Value("${groq.http.stream-timeout-ms:60000}")
+    private long streamTimeoutMs;
+
+    @Value("${groq.http.max-concurrent-requests:64}")
+    private int maxConcurrentRequests;
+
+    @Value("${groq.http.io-threads:8}")
+    private int ioThreads;
+
+    private final ObjectMapper objectMapper;
+    private final CircuitBreaker groqCircuitBreaker;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, LongAdder> stateTransitions = new ConcurrentHashMap<>();
+
+    private ExecutorService executor;
+    private HttpClient httpClient;
+    private Semaphore permits;
+
+    private Counter rejectedByCircuit;
+    private Counter rejectedByConcurrency;
+    private DistributionSummary promptTokens;
+    private DistributionSummary completionTokens;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(ioThreads, runnable -> {
+            Thread thread = new Thread(runnable, "groq-http-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .executor(executor)
+                .build();
+        permits = new Semaphore(maxConcurrentRequests);
+
+        rejectedByCircuit = Counter.builder("groq.rejected")
+                .description("Groq calls refused before being sent")
+                .tag("reason", "circuit_open")
+                .register(meterRegistry);
+        rejectedByConcurrency = Counter.builder("groq.rejected")
+                .description("Groq calls refused before being sent")
+                .tag("reason", "concurrency_limit")
+                .register(meterRegistry);
+        promptTokens = DistributionSummary.builder("groq.tokens")
+                .description("Tokens reported in the Groq usage block")
+                .baseUnit("tokens")
+                .tag("type", "prompt")
+                .register(meterRegistry);
+        completionTokens = DistributionSummary.builder("groq.tokens")
+                .description("Tokens reported in the Groq usage block")
+                .baseUnit("tokens")
+                .tag("type", "completion")
+                .register(meterRegistry);
+
+        groqCircuitBreaker.getEventPublisher().onStateTransition(event -> {
+            log.warn("Groq circuit breaker: {}", event.getStateTransition());
+            stateTransitions.computeIfAbsent(event.getStateTransition().name(), name -> new LongAdder())
+                    .increment();
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Requests a full completion. The future yields the assistant content, or {@code null}
+     * when Groq answered without any choices.
+     */
+    public CompletableFuture<String> complete(List<Map<String, String>> messages) {
+        CompletableFuture<String> rejected = acquire();
+        if (rejected != null) {
+            return rejected;
+        }
+
+        long startNanos = System.nanoTime();
+        HttpRequest request = buildRequest(messages, false, requestTimeoutMs);
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8))
+                .thenApply(response -> {
+                    checkStatus(response.statusCode());
+                    return extractContent(response.body());
+                })
+                .whenComplete((content, error) -> release("complete", startNanos, error));
+    }
+
+    /**
+     * Requests a streamed completion, handing each content delta to {@code onToken} on the
+     * client's I/O threads as it arrives. The future yields the assembled content. If
+     * {@code onToken} throws, the upstream stream is cancelled and the future fails.
+     */
+    public CompletableFuture<String> stream(List<Map<String, String>> messages, Consumer<String> onToken) {
+        CompletableFuture<String> rejected = acquire();
+        if (rejected != null) {
+            return rejected;
+        }
+
+        long startNanos = System.nanoTime();
+        CompletableFuture<String> result = new CompletableFuture<>();
+        DeltaSubscriber subscriber = new DeltaSubscriber(onToken, result);
+        HttpRequest request = buildRequest(messages, true, requestTimeoutMs);
+        HttpResponse.BodyHandler<Void> handler = info -> info.statusCode() == 200
+                ? HttpResponse.BodySubscribers.fromLineSubscriber(subscriber)
+                : HttpResponse.BodySubscribers.replacing(null);
+
+        httpClient.sendAsync(request, handler).whenComplete((response, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else if (response.statusCode() != 200) {
+                result.completeExceptionally(new GroqClientException(response.statusCode()));
+            } else {
+                result.complete(subscriber.assembled());
+            }
+        });
+
+        return result
+                .orTimeout(streamTimeoutMs, TimeUnit.MILLISECONDS)
+                .whenComplete((content, error) -> {
+                    if (error != null) {
+                        subscriber.cancel();
+                    }
+                    release("stream", startNanos, error);
+                });
+    }
+
+    /**
+     * Concurrency permits currently free, for background callers that should leave room
+     * for chat traffic.
+     */
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    public boolean isCircuitClosed() {
+        return groqCircuitBreaker.getState() == CircuitBreaker.State.CLOSED;
+    }
+
+    public Map<String, Object> getCircuitBreakerStats() {
+        CircuitBreaker.Metrics metrics = groqCircuitBreaker.getMetrics();
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("state", groqCircuitBreaker.getState().name());
+        stats.put("failureRate", metrics.getFailureRate());
+        stats.put("slowCallRate", metrics.getSlowCallRate());
+        stats.put("bufferedCalls", metrics.getNumberOfBufferedCalls());
+        stats.put("failedCalls", metrics.getNumberOfFailedCalls());
+        stats.put("slowCalls", metrics.getNumberOfSlowCalls());
+        stats.put("notPermittedCalls", metrics.getNumberOfNotPermittedCalls());
+        Map<String, Long> transitions = new HashMap<>();
+        stateTransitions.forEach((name, count) -> transitions.put(name, count.sum()));
+        stats.put("stateTransitions", transitions);
+        return stats;
+    }
+
+    /**
+     * Takes a circuit breaker permission and a concurrency permit. Returns a failed future
+     * when either is unavailable, or {@code null} when the call may proceed.
+     */
+    private CompletableFuture<String> acquire() {
+        if (!groqCircuitBreaker.tryAcquirePermission()) {
+            rejectedByCircuit.increment();
+            return CompletableFuture.failedFuture(
+                    CallNotPermittedException.createCallNotPermittedException(groqCircuitBreaker));
+        }
+        if (!permits.tryAcquire()) {
+            groqCircuitBreaker.releasePermission();
+            rejectedByConcurrency.increment();
+            return CompletableFuture.failedFuture(
+                    new RejectedExecutionException("Too many concurrent Groq requests"));
+        }
+        return null;
+    }
+
+    private void release(String type, long startNanos, Throwable error) {
+        permits.release();
+        long elapsed = System.nanoTime() - startNanos;
+        Throwable cause = null;
+        if (error == null) {
+            groqCircuitBreaker.onSuccess(elapsed, TimeUnit.NANOSECONDS);
+        } else {
+            cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause()
+                    : error;
+            groqCircuitBreaker.onError(elapsed, TimeUnit.NANOSECONDS, cause);
+        }
+
+        Timer.builder("groq.request")
+                .description("Groq chat completion calls")
+                .tag("type", type)
+                .tag("outcome", outcome(cause))
+                .tag("status", cause == null ? "200"
+                        : cause instanceof GroqClientException e ? Integer.toString(e.getStatusCode()) : "none")
+                .register(meterRegistry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+    }
+
+    private static String outcome(Throwable cause) {
+        if (cause == null) {
+            return "success";
+        } else if (cause instanceof GroqClientException) {
+            return "http_error";
+        } else if (cause instanceof TimeoutException || cause instanceof HttpTimeoutException) {
+            return "timeout";
+        } else if (cause instanceof UncheckedIOException) {
+            return "client_aborted";
+        }
+        return "error";
+    }
+
+    /**
+     * Records token usage. Non-streamed responses carry it in {@code usage}; Groq puts it
+     * in {@code x_groq.usage} on the last chunk of a stream.
+     */
+    private void recordUsage(JsonNode root) {
+        JsonNode usage = root.path("usage");
+        if (!usage.isObject()) {
+            usage = root.path("x_groq").path("usage");
+            if (!usage.isObject()) {
+                return;
+            }
+        }
+        JsonNode prompt = usage.path("prompt_tokens");
+        JsonNode completion = usage.path("completion_tokens");
+        if (prompt.isNumber()) {
+            promptTokens.record(prompt.asLong());
+        }
+        if (completion.isNumber()) {
+            completionTokens.record(completion.asLong());
+        }
+    }
+
+    private HttpRequest buildRequest(List<Map<String, String>> messages, boolean stream, long timeoutMs) {
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", MODEL);
+        requestBody.put("messages", messages);
+        requestBody.put("max_tokens", MAX_TOKENS);
+        requestBody.put("temperature", TEMPERATURE);
+        if (stream) {
+            requestBody.put("stream", true);
+        }
+
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(requestBody);
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not serialize Groq request", e);
+        }
+
+        return HttpRequest.newBuilder(URI.create(apiUrl))
+                .timeout(Duration.ofMillis(timeoutMs))
+                .header("Authorization", "Bearer " + apiKey)
+                .header("Content-Type", "application/json")
+                .header("Accept", stream ? "text/event-stream" : "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(payload))
+                .build();
+    }
+
+    private void checkStatus(int statusCode) {
+        if (statusCode != 200) {
+            throw new GroqClientException(statusCode);
+        }
+    }
+
+    private String extractContent(String body) {
+        try {
+            JsonNode root = objectMapper.readTree(body);
+            recordUsage(root);
+            JsonNode choices = root.path("choices");
+            if (choices.isArray() && !choices.isEmpty()) {
+                JsonNode content = choices.get(0).path("message").path("content");
+                return content.isTextual() ? content.asText() : null;
+            }
+            return null;
+        } catch (Exception e) {
+            throw new IllegalStateException("Unreadable Groq response", e);
+        }
+    }
+
+    private String extractDelta(String data) {
+        try {
+            JsonNode root = objectMapper.readTree(data);
+            recordUsage(root);
+            JsonNode choices = root.path("choices");
+            if (choices.isArray() && !choices.isEmpty()) {
+                JsonNode content = choices.get(0).path("delta").path("content");
+                return content.isTextual() ? content.asText() : null;
+            }
+        } catch (Exception e) {
+            log.debug("Skipping unparseable stream chunk: {}", data);
+        }
+        return null;
+    }
+
+    /**
+     * Thrown when Groq answers with a non-200 status.
+     */
+    public static class GroqClientException extends RuntimeException {
+
+        private final int statusCode;
+
+        public GroqClientException(int statusCode) {
+            super("Groq returned HTTP " + statusCode);
+            this.statusCode = statusCode;
+        }
+
+        public int getStatusCode() {
+            return statusCode;
+        }
+    }
+
+    private final class DeltaSubscriber implements Flow.Subscriber<String> {
+
+        private final Consumer<String> onToken;
+        private final CompletableFuture<String> result;
+        private final StringBuilder assembled = new StringBuilder();
+        private volatile Flow.Subscription subscription;
+
+        private DeltaSubscriber(Consumer<String> onToken, CompletableFuture<String> result) {
+            this.onToken = onToken;
+            this.result = result;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (result.isDone() || !line.startsWith(STREAM_DATA_PREFIX)) {
+                return;
+            }
+            String data = line.substring(STREAM_DATA_PREFIX.length()).trim();
+            if (STREAM_DONE.equals(data)) {
+                return;
+            }
+            String delta = extractDelta(data);
+            if (delta == null || delta.isEmpty()) {
+                return;
+            }
+            try {
+                synchronized (assembled) {
+                    assembled.append(delta);
+                }
+                onToken.accept(delta);
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+                cancel();
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            result.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            // The response future completes the result once headers and body are done
+        }
+
+        private void cancel() {
+            Flow.Subscription current = subscription;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+
+        private String assembled() {
+            synchronized (assembled) {
+                return assembled.toString();
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.demo.service;
+
+import java.time.Instant;
+
+/**
+ * Claims of a token whose signature and expiry have been verified. {@code userId} is
+ * {@code null} for tokens issued before the id claim was introduced.
+ */
+public record JwtPrincipal(Long userId, String email, String role, Instant expiresAt) {
+}
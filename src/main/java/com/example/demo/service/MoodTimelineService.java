@@ -0,0 +1,127 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.MoodTimelineBucket;
+import com.example.demo.repository.ChatRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Daily or weekly mood buckets for one user, aggregated by the database over UTC days
+ * (see {@link ChatDays}).
+ *
+ * Results are cached per user and dropped as soon as that user saves a new chat, so a
+ * dashboard polling the timeline only queries again after something changed.
+ */
+@Service
+@RequiredArgsConstructor
+public class MoodTimelineService {
+
+    public static final String DAY = "day";
+    public static final String WEEK = "week";
+
+    @Value("${chat.timeline.max-days:366}")
+    private int maxDays;
+
+    @Value("${chat.timeline.cache.max-users:10000}")
+    private long maxCachedUsers;
+
+    @Value("${chat.timeline.cache.ttl-minutes:30}")
+    private long ttlMinutes;
+
+    private final ChatRepository chatRepository;
+
+    // userId -> (granularity|from|to -> buckets)
+    private Cache<Long, Map<String, List<MoodTimelineBucket>>> cache;
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxCachedUsers)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .build();
+    }
+
+    /**
+     * Buckets between {@code from} and {@code to} (inclusive days), oldest first. Missing
+     * bounds default to the last 30 days or 12 weeks; ranges longer than the configured
+     * maximum are cut at the start.
+     */
+    public List<MoodTimelineBucket> getTimeline(Long userId, String granularity, LocalDate from, LocalDate to) {
+        String unit = granularity == null ? DAY : granularity.trim().toLowerCase(Locale.ROOT);
+        if (!DAY.equals(unit) && !WEEK.equals(unit)) {
+            throw new RuntimeException("Granularity must be 'day' or 'week'");
+        }
+
+        LocalDate end = to != null ? to : ChatDays.today();
+        LocalDate start = from != null ? from : DAY.equals(unit) ? end.minusDays(29) : end.minusWeeks(11);
+        if (start.isAfter(end)) {
+            throw new RuntimeException("'from' must not be after 'to'");
+        }
+        if (ChronoUnit.DAYS.between(start, end) >= maxDays) {
+            start = end.minusDays(maxDays - 1L);
+        }
+
+        LocalDate rangeStart = start;
+        String variant = unit + '|' + start + '|' + end;
+        return cache.get(userId, id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(variant, key -> load(userId, unit, rangeStart, end));
+    }
+
+    public void invalidate(Long userId) {
+        cache.invalidate(userId);
+    }
+
+    private List<MoodTimelineBucket> load(Long userId, String unit, LocalDate start, LocalDate end) {
+        List<Object[]> rows = chatRepository.getMoodTimeline(
+                userId, unit, ChatDays.startOf(start), ChatDays.startOf(end.plusDays(1)));
+
+        // Rows arrive ordered by bucket, one per sentiment
+        Map<LocalDate, Accumulator> buckets = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            LocalDate bucket = toLocalDate(row[0]);
+            Accumulator accumulator = buckets.computeIfAbsent(bucket, b -> new Accumulator());
+            long chats = ((Number) row[2]).longValue();
+            accumulator.chats += chats;
+            accumulator.sentiments.put((String) row[1], chats);
+            if (row[3] != null) {
+                accumulator.moodSum += ((Number) row[3]).doubleValue();
+                accumulator.scored += ((Number) row[4]).longValue();
+            }
+        }
+
+        List<MoodTimelineBucket> timeline = new ArrayList<>(buckets.size());
+        buckets.forEach((bucket, accumulator) -> timeline.add(MoodTimelineBucket.builder()
+                .start(bucket)
+                .chats(accumulator.chats)
+                .averageMoodScore(accumulator.scored == 0 ? null : accumulator.moodSum / accumulator.scored)
+                .sentiments(accumulator.sentiments)
+                .build()));
+        return List.copyOf(timeline);
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        return value instanceof java.sql.Date date ? date.toLocalDate() : (LocalDate) value;
+    }
+
+    private static final class Accumulator {
+        private long chats;
+        private double moodSum;
+        private long scored;
+        private final Map<String, Long> sentiments = new HashMap<>();
+    }
+}
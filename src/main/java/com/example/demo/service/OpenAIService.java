@@ -1,203 +1,220 @@
 package com.example.demo.service;
 
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class OpenAIService {
 
-    @Value("${groq.api.key}")
-    private String apiKey;
-
-    @Value("${groq.api.url}")
-    private String apiUrl;
-
-    private final RestTemplate restTemplate = new RestTemplate();
-    private final Map<String, List<Map<String, String>>> conversationMemory = new ConcurrentHashMap<>();
-
-    public String getChatResponse(String userMessage, String userId) {
-        try {
-            log.info("🔵 ========================================");
-            log.info("🔵 User Message: {}", userMessage);
-            log.info("🔵 User ID: {}", userId);
-            log.info("🔵 API URL: {}", apiUrl);
-
-            String sentiment = analyzeSentiment(userMessage);
-            log.info("🔵 Detected Sentiment: {}", sentiment);
-
-            List<Map<String, String>> messages = buildConversation(userMessage, userId, sentiment);
+    private final GroqClient groqClient;
+    private final ConversationStore conversationStore;
+    private final ResponseCache responseCache;
+    private final RequestCoalescer requestCoalescer;
+    private final PromptAssembler promptAssembler;
+    private final CompletionPool completionPool;
+    private final MeterRegistry meterRegistry;
+
+    // chat.replies by source; fallback / total is the fallback rate
+    private Counter groqReplies;
+    private Counter cachedReplies;
+    private Counter fallbackReplies;
+
+    @PostConstruct
+    void init() {
+        groqReplies = replyCounter("groq");
+        cachedReplies = replyCounter("cache");
+        fallbackReplies = replyCounter("fallback");
+    }
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.setBearerAuth(apiKey);
+    /**
+     * Requests a completion for {@code userMessage}. The future never fails: upstream errors
+     * resolve to a sentiment-matched fallback response. Context-free requests
+     * ({@code userId == null}) are answered from {@link ResponseCache} when possible, and
+     * identical ones in flight at the same time share a single upstream call.
+     * {@code sentiment} is computed once per request by the caller.
+     */
+    public CompletableFuture<String> getChatResponseAsync(String userMessage, String userId, String mode,
+                                                          String sentiment) {
+        String requestId = PipelineEvents.currentRequestId();
+
+        String cacheKey = userId == null ? ResponseCache.key(userMessage, sentiment, mode) : null;
+        if (cacheKey != null) {
+            Optional<String> cached = responseCache.lookup(cacheKey);
+            if (cached.isPresent()) {
+                cachedReplies.increment();
+                return CompletableFuture.completedFuture(cached.get());
+            }
+        }
 
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("model", "llama-3.3-70b-versatile");
-            requestBody.put("messages", messages);
-            requestBody.put("max_tokens", 500);
-            requestBody.put("temperature", 0.9);
+        List<Map<String, String>> messages = buildConversation(userMessage, userId, sentiment, mode, requestId);
+
+        PipelineEvents.UpstreamCallEvent upstreamEvent = new PipelineEvents.UpstreamCallEvent();
+        upstreamEvent.begin();
+
+        CompletableFuture<String> upstream = cacheKey == null
+                ? groqClient.complete(messages)
+                : requestCoalescer.execute(cacheKey, () -> {
+                    long startNanos = System.nanoTime();
+                    return groqClient.complete(messages).thenApply(aiResponse -> {
+                        if (aiResponse != null) {
+                            responseCache.store(cacheKey, aiResponse, System.nanoTime() - startNanos);
+                        }
+                        return aiResponse;
+                    });
+                });
+
+        // Storing the turn may load the conversation from the database
+        return upstream
+                .thenApplyAsync(aiResponse -> {
+                    if (aiResponse == null) {
+                        log.warn("⚠️ No valid response from Groq, using fallback");
+                        fallbackReplies.increment();
+                        commitUpstream(upstreamEvent, requestId, false, "empty", null);
+                        return getFallbackResponse(sentiment);
+                    }
 
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
+                    commitUpstream(upstreamEvent, requestId, false, "success", aiResponse);
 
-            log.info("🚀 Calling Groq API...");
+                    if (userId != null) {
+                        storeConversation(userId, userMessage, aiResponse);
+                    }
 
-            @SuppressWarnings("unchecked")
-            ResponseEntity<Map> response = restTemplate.exchange(
-                    apiUrl,
-                    HttpMethod.POST,
-                    entity,
-                    Map.class
-            );
+                    groqReplies.increment();
+                    return aiResponse;
+                }, completionPool.executor())
+                .exceptionally(e -> {
+                    Throwable cause = unwrap(e);
+                    logUpstreamFailure(cause);
+                    fallbackReplies.increment();
+                    commitUpstream(upstreamEvent, requestId, false, cause.getClass().getSimpleName(), null);
+                    return getFallbackResponse(sentiment);
+                });
+    }
 
-            log.info("✅ Groq Response Status: {}", response.getStatusCode());
+    /**
+     * Streams the completion for {@code userMessage}, handing every content delta to
+     * {@code onToken} as soon as Groq emits it. Conversation memory is only updated once
+     * the stream has finished; the future yields the assembled response.
+     */
+    public CompletableFuture<String> streamChatResponse(String userMessage, String userId, String mode,
+                                                        String sentiment, Consumer<String> onToken) {
+        String requestId = PipelineEvents.currentRequestId();
+        List<Map<String, String>> messages = buildConversation(userMessage, userId, sentiment, mode, requestId);
+        AtomicBoolean tokensSent = new AtomicBoolean();
+
+        PipelineEvents.UpstreamCallEvent upstreamEvent = new PipelineEvents.UpstreamCallEvent();
+        upstreamEvent.begin();
+
+        return groqClient.stream(messages, token -> {
+                    tokensSent.set(true);
+                    onToken.accept(token);
+                })
+                .handleAsync((aiResponse, e) -> {
+                    if (e != null) {
+                        commitUpstream(upstreamEvent, requestId, true, unwrap(e).getClass().getSimpleName(), null);
+                        if (tokensSent.get()) {
+                            // Tokens already reached the client; a fallback would contradict them.
+                            throw new CompletionException(unwrap(e));
+                        }
+                        logUpstreamFailure(unwrap(e));
+                        fallbackReplies.increment();
+                        String fallback = getFallbackResponse(sentiment);
+                        onToken.accept(fallback);
+                        return fallback;
+                    }
 
-            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                @SuppressWarnings("unchecked")
-                List<Map<String, Object>> choices = (List<Map<String, Object>>) response.getBody().get("choices");
-                if (choices != null && !choices.isEmpty()) {
-                    @SuppressWarnings("unchecked")
-                    Map<String, Object> message = (Map<String, Object>) choices.get(0).get("message");
-                    String aiResponse = (String) message.get("content");
+                    commitUpstream(upstreamEvent, requestId, true, aiResponse.isEmpty() ? "empty" : "success", aiResponse);
 
-                    log.info("🎯 AI Response Generated: {} characters", aiResponse.length());
-                    log.info("🎯 First 100 chars: {}", aiResponse.substring(0, Math.min(100, aiResponse.length())));
+                    if (aiResponse.isEmpty()) {
+                        log.warn("⚠️ Empty stream from Groq, using fallback");
+                        fallbackReplies.increment();
+                        String fallback = getFallbackResponse(sentiment);
+                        onToken.accept(fallback);
+                        return fallback;
+                    }
 
                     if (userId != null) {
                         storeConversation(userId, userMessage, aiResponse);
                     }
-
+                    groqReplies.increment();
                     return aiResponse;
-                }
-            }
-
-            log.warn("⚠️ No valid response from Groq, using fallback");
-            return getFallbackResponse(sentiment);
+                }, completionPool.executor());
+    }
 
-        } catch (Exception e) {
-            log.error("❌ Groq API Error: {}", e.getMessage());
-            log.error("❌ Error Type: {}", e.getClass().getName());
-            log.error("❌ Full Stack Trace: ", e);
-            return getFallbackResponse(analyzeSentiment(userMessage));
+    private void logUpstreamFailure(Throwable cause) {
+        if (cause instanceof CallNotPermittedException) {
+            // Expected while the breaker is open; the transition itself is logged once
+            log.debug("Groq circuit open, serving fallback");
+        } else {
+            log.warn("❌ Groq API Error ({}): {}", cause.getClass().getSimpleName(), cause.getMessage());
         }
     }
 
-    private List<Map<String, String>> buildConversation(String userMessage, String userId, String sentiment) {
-        List<Map<String, String>> messages = new ArrayList<>();
+    private Counter replyCounter(String source) {
+        return Counter.builder("chat.replies")
+                .description("Assistant replies by where they came from")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
 
-        String systemPrompt = buildDynamicSystemPrompt(sentiment, userId);
-        messages.add(Map.of("role", "system", "content", systemPrompt));
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
 
-        if (userId != null && conversationMemory.containsKey(userId)) {
-            List<Map<String, String>> history = conversationMemory.get(userId);
-            int startIndex = Math.max(0, history.size() - 6);
-            messages.addAll(history.subList(startIndex, history.size()));
+    private static void commitUpstream(PipelineEvents.UpstreamCallEvent event, String requestId, boolean streamed,
+                                       String outcome, String response) {
+        if (event.shouldCommit()) {
+            event.requestId = requestId;
+            event.streamed = streamed;
+            event.outcome = outcome;
+            event.responseLength = response == null ? 0 : response.length();
+            event.commit();
         }
-
-        messages.add(Map.of("role", "user", "content", userMessage));
-
-        return messages;
     }
 
-    private String buildDynamicSystemPrompt(String sentiment, String userId) {
-        StringBuilder prompt = new StringBuilder();
-
-        prompt.append("You are Mood AI, a warm and caring mental wellness companion. ");
-        prompt.append("Respond naturally like a supportive friend. Be specific and helpful.\n\n");
-
-        switch (sentiment) {
-            case "POSITIVE":
-                prompt.append("The user is happy! Match their energy. Be enthusiastic. ");
-                prompt.append("If they ask for songs, give 5-7 SPECIFIC song titles with artists. ");
-                prompt.append("Example: '1. Happy by Pharrell Williams, 2. Good Vibrations by The Beach Boys'\n");
-                break;
-
-            case "NEGATIVE":
-                prompt.append("The user is struggling. Be gentle and supportive. ");
-                prompt.append("Offer specific help: breathing exercises, calming activities. ");
-                prompt.append("If they ask for songs, give calming music with specific titles.\n");
-                break;
-
-            default:
-                prompt.append("Be warm and conversational. ");
-                prompt.append("When asked for recommendations, always give specific examples. ");
-                prompt.append("If asked for songs, list actual song titles and artists.\n");
+    private List<Map<String, String>> buildConversation(String userMessage, String userId, String sentiment,
+                                                        String mode, String requestId) {
+        PipelineEvents.PromptBuildEvent event = new PipelineEvents.PromptBuildEvent();
+        event.begin();
+
+        ConversationStore.Snapshot conversation = userId != null
+                ? conversationStore.snapshot(Long.valueOf(userId))
+                : new ConversationStore.Snapshot(null, List.of());
+        List<Map<String, String>> messages = promptAssembler.assemble(
+                userMessage, sentiment, mode, conversation.summary(), conversation.turns());
+
+        if (event.shouldCommit()) {
+            event.requestId = requestId;
+            event.historyTurns = conversation.turns().size();
+            event.withSummary = conversation.summary() != null;
+            event.messages = messages.size();
+            event.estimatedTokens = messages.stream()
+                    .mapToInt(message -> PromptAssembler.estimateTokens(message.get("content")))
+                    .sum();
+            event.commit();
         }
-
-        prompt.append("\nIMPORTANT: When the user asks for songs, ALWAYS provide a numbered list ");
-        prompt.append("with specific song titles and artists. Never be vague!\n");
-        prompt.append("Example:\n");
-        prompt.append("1. 'Happy' by Pharrell Williams\n");
-        prompt.append("2. 'Don't Stop Me Now' by Queen\n");
-        prompt.append("3. 'Good Life' by OneRepublic\n\n");
-        prompt.append("Keep responses friendly, specific, and under 200 words. Use 1-2 emojis.");
-
-        return prompt.toString();
+        return messages;
     }
 
     private void storeConversation(String userId, String userMessage, String aiResponse) {
-        conversationMemory.putIfAbsent(userId, new ArrayList<>());
-        List<Map<String, String>> history = conversationMemory.get(userId);
-
-        history.add(Map.of("role", "user", "content", userMessage));
-        history.add(Map.of("role", "assistant", "content", aiResponse));
-
-        if (history.size() > 10) {
-            history.subList(0, history.size() - 10).clear();
-        }
+        conversationStore.append(Long.valueOf(userId), userMessage, aiResponse);
     }
 
     public void clearConversationHistory(String userId) {
-        conversationMemory.remove(userId);
-    }
-
-    public String analyzeSentiment(String text) {
-        if (text == null || text.trim().isEmpty()) {
-            return "NEUTRAL";
-        }
-
-        String lowerText = text.toLowerCase();
-
-        String[] positiveWords = {
-                "happy", "joy", "great", "excellent", "wonderful", "amazing", "fantastic",
-                "excited", "grateful", "thankful", "blessed", "proud", "delighted",
-                "cheerful", "love", "better", "good", "awesome"
-        };
-
-        String[] negativeWords = {
-                "sad", "depressed", "angry", "anxious", "worried", "stressed", "upset",
-                "frustrated", "hurt", "pain", "crying", "lonely", "hopeless", "scared",
-                "afraid", "terrible", "horrible", "bad", "worse", "overwhelmed"
-        };
-
-        int positiveCount = 0;
-        int negativeCount = 0;
-
-        for (String word : positiveWords) {
-            if (lowerText.contains(word)) {
-                positiveCount++;
-            }
-        }
-
-        for (String word : negativeWords) {
-            if (lowerText.contains(word)) {
-                negativeCount++;
-            }
-        }
-
-        if (positiveCount > negativeCount && positiveCount > 0) {
-            return "POSITIVE";
-        } else if (negativeCount > positiveCount && negativeCount > 0) {
-            return "NEGATIVE";
-        }
-
-        return "NEUTRAL";
+        conversationStore.clear(Long.valueOf(userId));
     }
 
     public Double calculateMoodScore(String sentiment) {
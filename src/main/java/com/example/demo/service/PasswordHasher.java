@@ -0,0 +1,133 @@
+package com.example.demo.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs BCrypt hashing and verification off the servlet threads.
+ *
+ * BCrypt is deliberately CPU-bound, so a login burst on request threads would occupy the
+ * whole Tomcat pool and starve chat traffic. Work goes to a small pool sized to the CPU
+ * count with a bounded queue; once the queue is full, calls fail immediately with
+ * {@link HasherSaturatedException} instead of waiting.
+ */
+@Component
+@RequiredArgsConstructor
+public class PasswordHasher {
+
+    // 0 means one thread per available processor
+    @Value("${security.bcrypt.threads:0}")
+    private int threads;
+
+    @Value("${security.bcrypt.queue-capacity:64}")
+    private int queueCapacity;
+
+    private final BCryptPasswordEncoder passwordEncoder;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+    private final LongAccumulator peakQueueDepth = new LongAccumulator(Math::max, 0);
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void init() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "bcrypt-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    public CompletableFuture<String> encode(CharSequence rawPassword) {
+        return submit(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    public CompletableFuture<Boolean> matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * True when {@code encodedPassword} was hashed with a lower cost factor than the one
+     * currently configured. Only parses the hash prefix, so it is cheap to call inline.
+     */
+    public boolean needsRehash(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    public Map<String, Object> getStats() {
+        long completedCount = completed.sum();
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("poolSize", executor.getPoolSize());
+        stats.put("active", executor.getActiveCount());
+        stats.put("queueDepth", executor.getQueue().size());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("peakQueueDepth", peakQueueDepth.get());
+        stats.put("completed", completedCount);
+        stats.put("rejected", rejected.sum());
+        stats.put("avgQueueWaitMillis", completedCount == 0 ? 0.0 : queueWaitNanos.sum() / 1e6 / completedCount);
+        stats.put("avgHashMillis", completedCount == 0 ? 0.0 : hashNanos.sum() / 1e6 / completedCount);
+        return stats;
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> work) {
+        long enqueuedNanos = System.nanoTime();
+        try {
+            CompletableFuture<T> result = CompletableFuture.supplyAsync(() -> {
+                long startNanos = System.nanoTime();
+                queueWaitNanos.add(startNanos - enqueuedNanos);
+                try {
+                    return work.get();
+                } finally {
+                    hashNanos.add(System.nanoTime() - startNanos);
+                    completed.increment();
+                }
+            }, executor);
+            peakQueueDepth.accumulate(executor.getQueue().size());
+            return result;
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            return CompletableFuture.failedFuture(new HasherSaturatedException());
+        }
+    }
+
+    public static class HasherSaturatedException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        public HasherSaturatedException() {
+            super("Too many sign-in attempts right now, please try again shortly");
+        }
+    }
+}
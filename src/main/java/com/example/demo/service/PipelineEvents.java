@@ -0,0 +1,151 @@
+package com.example.demo.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.slf4j.MDC;
+
+/**
+ * Java Flight Recorder events for each stage of a chat request.
+ *
+ * The events are enabled by default, so any running recording picks them up, for example
+ * {@code -XX:StartFlightRecording=maxage=6h,filename=mood-ai.jfr} on the production command
+ * line. Stack traces are off; every event carries the request id assigned by
+ * {@code RequestIdFilter} so the stages of one request can be lined up in JMC or
+ * {@code jfr print --events moodai.*}.
+ *
+ * Usage follows the usual JFR pattern: {@code begin()} before the stage, then set the
+ * fields and {@code commit()} only if {@code shouldCommit()}, so a node without an active
+ * recording pays next to nothing.
+ */
+public final class PipelineEvents {
+
+    /**
+     * MDC key (and request attribute) holding the current request id.
+     */
+    public static final String REQUEST_ID = "requestId";
+
+    private PipelineEvents() {
+    }
+
+    /**
+     * The request id of the request being served on this thread, or {@code null} on
+     * threads outside a request. Callers that hop threads capture it up front.
+     */
+    public static String currentRequestId() {
+        return MDC.get(REQUEST_ID);
+    }
+
+    @Category({"Mood AI", "Chat"})
+    @StackTrace(false)
+    public abstract static class StageEvent extends Event {
+
+        @Label("Request Id")
+        public String requestId;
+    }
+
+    @Name("moodai.JwtFilter")
+    @Label("JWT Filter")
+    @Description("Bearer token verification in JwtAuthFilter")
+    public static class JwtFilterEvent extends StageEvent {
+
+        @Label("Token Length")
+        @DataAmount(DataAmount.BYTES)
+        public int tokenLength;
+
+        @Label("Authenticated")
+        public boolean authenticated;
+    }
+
+    @Name("moodai.UserResolution")
+    @Label("User Resolution")
+    @Description("Resolving the verified token to a user through the identity cache")
+    public static class UserResolutionEvent extends StageEvent {
+
+        @Label("User Id")
+        public long userId;
+
+        @Label("By Email")
+        @Description("Legacy token without a user id claim")
+        public boolean byEmail;
+
+        @Label("Found")
+        public boolean found;
+    }
+
+    @Name("moodai.Sentiment")
+    @Label("Sentiment Analysis")
+    public static class SentimentEvent extends StageEvent {
+
+        @Label("Message Length")
+        @DataAmount(DataAmount.BYTES)
+        public int messageLength;
+
+        @Label("Label")
+        public String label;
+    }
+
+    @Name("moodai.PromptBuild")
+    @Label("Prompt Build")
+    @Description("History lookup and prompt assembly for the Groq request")
+    public static class PromptBuildEvent extends StageEvent {
+
+        @Label("History Turns Available")
+        public int historyTurns;
+
+        @Label("With Summary")
+        @Description("Whether a rolling summary of older turns was available")
+        public boolean withSummary;
+
+        @Label("Messages")
+        public int messages;
+
+        @Label("Estimated Tokens")
+        public int estimatedTokens;
+    }
+
+    @Name("moodai.UpstreamCall")
+    @Label("Upstream Call")
+    @Description("Groq completion, from request to the last byte or the fallback")
+    public static class UpstreamCallEvent extends StageEvent {
+
+        @Label("Streamed")
+        public boolean streamed;
+
+        @Label("Response Length")
+        @DataAmount(DataAmount.BYTES)
+        public int responseLength;
+
+        @Label("Outcome")
+        public String outcome;
+    }
+
+    @Name("moodai.Persistence")
+    @Label("Persistence")
+    @Description("Write transaction saving the chat turn")
+    public static class PersistenceEvent extends StageEvent {
+
+        @Label("Chat Id")
+        public long chatId;
+
+        @Label("Stored Length")
+        @DataAmount(DataAmount.BYTES)
+        public int storedLength;
+    }
+
+    @Name("moodai.Serialization")
+    @Label("Serialization")
+    @Description("Writing a JSON response body or final SSE event to the client")
+    public static class SerializationEvent extends StageEvent {
+
+        @Label("Kind")
+        public String kind;
+
+        @Label("Payload Type")
+        public String payloadType;
+    }
+}
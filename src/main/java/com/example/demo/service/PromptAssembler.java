@@ -0,0 +1,158 @@
+package com.example.demo.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Builds the message list sent to Groq.
+ *
+ * System prompts are rendered once at startup for every (sentiment, mode) pair and reused
+ * as immutable messages. The rolling summary of older turns, when there is one, follows as
+ * a second system message; conversation history is then added newest first for as long as
+ * it fits the configured prompt-token budget, so prompt size stays bounded however long
+ * the retained turns are.
+ */
+@Component
+public class PromptAssembler {
+
+    private static final List<String> SENTIMENTS = List.of(
+            SentimentEngine.POSITIVE, SentimentEngine.NEGATIVE, SentimentEngine.NEUTRAL);
+
+    private static final Map<String, String> MODE_PERSONAS = Map.of(
+            "supportive", "Lean into empathy: validate their feelings before offering suggestions. ",
+            "motivational", "Be an upbeat coach: encourage action and end with one small next step. ",
+            "analytical", "Be structured and practical: break problems down and explain your reasoning briefly. ",
+            "casual", "Keep it relaxed and conversational, like texting a good friend. "
+    );
+
+    private static final String DEFAULT_MODE = "";
+
+    private static final String SUMMARY_PREFIX = "Summary of the earlier conversation with this user:\n";
+
+    // Rough per-message framing overhead of the chat format
+    private static final int MESSAGE_OVERHEAD_TOKENS = 4;
+
+    @Value("${chat.prompt.token-budget:1500}")
+    private int tokenBudget;
+
+    private Map<String, Map<String, String>> systemMessages;
+
+    @PostConstruct
+    void compile() {
+        Map<String, Map<String, String>> compiled = new HashMap<>();
+        for (String sentiment : SENTIMENTS) {
+            compiled.put(templateKey(sentiment, DEFAULT_MODE), systemMessage(sentiment, null));
+            for (Map.Entry<String, String> persona : MODE_PERSONAS.entrySet()) {
+                compiled.put(templateKey(sentiment, persona.getKey()), systemMessage(sentiment, persona.getValue()));
+            }
+        }
+        systemMessages = Collections.unmodifiableMap(compiled);
+    }
+
+    public List<Map<String, String>> assemble(String userMessage, String sentiment, String mode, String summary,
+                                              List<ConversationStore.Turn> history) {
+        Map<String, String> systemMessage = systemMessageFor(sentiment, mode);
+        Map<String, String> userTurn = Map.of("role", "user", "content", userMessage);
+        Map<String, String> summaryMessage = summary == null || summary.isBlank()
+                ? null
+                : Map.of("role", "system", "content", SUMMARY_PREFIX + summary);
+
+        int remaining = tokenBudget
+                - estimateTokens(systemMessage.get("content"))
+                - (summaryMessage == null ? 0 : estimateTokens(summaryMessage.get("content")))
+                - estimateTokens(userMessage);
+
+        // Walk history newest first and keep whole turns while they fit
+        int firstIncluded = history.size();
+        for (int i = history.size() - 1; i >= 0; i--) {
+            ConversationStore.Turn turn = history.get(i);
+            int cost = estimateTokens(turn.userMessage()) + estimateTokens(turn.assistantResponse());
+            if (cost > remaining) {
+                break;
+            }
+            remaining -= cost;
+            firstIncluded = i;
+        }
+
+        List<Map<String, String>> messages = new ArrayList<>(3 + 2 * (history.size() - firstIncluded));
+        messages.add(systemMessage);
+        if (summaryMessage != null) {
+            messages.add(summaryMessage);
+        }
+        for (ConversationStore.Turn turn : history.subList(firstIncluded, history.size())) {
+            messages.add(Map.of("role", "user", "content", turn.userMessage()));
+            messages.add(Map.of("role", "assistant", "content", turn.assistantResponse()));
+        }
+        messages.add(userTurn);
+        return messages;
+    }
+
+    /**
+     * Approximate token count: about four characters per token for English text, plus the
+     * framing every chat message carries.
+     */
+    public static int estimateTokens(String text) {
+        return (text.length() + 3) / 4 + MESSAGE_OVERHEAD_TOKENS;
+    }
+
+    private Map<String, String> systemMessageFor(String sentiment, String mode) {
+        String normalizedMode = mode == null ? DEFAULT_MODE : mode.trim().toLowerCase(Locale.ROOT);
+        Map<String, String> message = systemMessages.get(templateKey(sentiment, normalizedMode));
+        if (message == null) {
+            message = systemMessages.get(templateKey(sentiment, DEFAULT_MODE));
+        }
+        return message != null ? message : systemMessages.get(templateKey(SentimentEngine.NEUTRAL, DEFAULT_MODE));
+    }
+
+    private static String templateKey(String sentiment, String mode) {
+        return sentiment + '|' + mode;
+    }
+
+    private static Map<String, String> systemMessage(String sentiment, String persona) {
+        StringBuilder prompt = new StringBuilder();
+
+        prompt.append("You are Mood AI, a warm and caring mental wellness companion. ");
+        prompt.append("Respond naturally like a supportive friend. Be specific and helpful.\n\n");
+
+        if (persona != null) {
+            prompt.append(persona).append("\n\n");
+        }
+
+        switch (sentiment) {
+            case SentimentEngine.POSITIVE:
+                prompt.append("The user is happy! Match their energy. Be enthusiastic. ");
+                prompt.append("If they ask for songs, give 5-7 SPECIFIC song titles with artists. ");
+                prompt.append("Example: '1. Happy by Pharrell Williams, 2. Good Vibrations by The Beach Boys'\n");
+                break;
+
+            case SentimentEngine.NEGATIVE:
+                prompt.append("The user is struggling. Be gentle and supportive. ");
+                prompt.append("Offer specific help: breathing exercises, calming activities. ");
+                prompt.append("If they ask for songs, give calming music with specific titles.\n");
+                break;
+
+            default:
+                prompt.append("Be warm and conversational. ");
+                prompt.append("When asked for recommendations, always give specific examples. ");
+                prompt.append("If asked for songs, list actual song titles and artists.\n");
+        }
+
+        prompt.append("\nIMPORTANT: When the user asks for songs, ALWAYS provide a numbered list ");
+        prompt.append("with specific song titles and artists. Never be vague!\n");
+        prompt.append("Example:\n");
+        prompt.append("1. 'Happy' by Pharrell Williams\n");
+        prompt.append("2. 'Don't Stop Me Now' by Queen\n");
+        prompt.append("3. 'Good Life' by OneRepublic\n\n");
+        prompt.append("Keep responses friendly, specific, and under 200 words. Use 1-2 emojis.");
+
+        return Map.of("role", "system", "content", prompt.toString());
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.demo.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process token-bucket rate limiter for chat generation requests.
+ *
+ * Each bucket is a single {@link AtomicLong} holding the time at which it will be full
+ * again (the GCRA form of a token bucket): taking a token is one compare-and-set, with no
+ * locks and no refill thread. Buckets live in Caffeine maps keyed by user id for
+ * authenticated traffic and by client address for anonymous traffic, and idle buckets
+ * expire on their own.
+ */
+@Component
+public class RateLimiter {
+
+    @Value("${rate-limit.anonymous.requests-per-minute:10}")
+    private int anonymousPerMinute;
+
+    @Value("${rate-limit.anonymous.burst:5}")
+    private int anonymousBurst;
+
+    @Value("${rate-limit.authenticated.requests-per-minute:30}")
+    private int authenticatedPerMinute;
+
+    @Value("${rate-limit.authenticated.burst:10}")
+    private int authenticatedBurst;
+
+    @Value("${rate-limit.idle-expiry-minutes:10}")
+    private long idleExpiryMinutes;
+
+    @Value("${rate-limit.max-keys:100000}")
+    private long maxKeys;
+
+    private Limit anonymousLimit;
+    private Limit authenticatedLimit;
+
+    private Cache<String, Bucket> clientBuckets;
+    private Cache<Long, Bucket> userBuckets;
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        anonymousLimit = new Limit(anonymousPerMinute, anonymousBurst);
+        authenticatedLimit = new Limit(authenticatedPerMinute, authenticatedBurst);
+        clientBuckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofMinutes(idleExpiryMinutes))
+                .build();
+        userBuckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofMinutes(idleExpiryMinutes))
+                .build();
+    }
+
+    /**
+     * Takes a token for an authenticated user. Returns 0 when the request may proceed,
+     * otherwise the number of nanoseconds until a token is available.
+     */
+    public long tryAcquireForUser(Long userId) {
+        Bucket bucket = userBuckets.getIfPresent(userId);
+        if (bucket == null) {
+            bucket = userBuckets.get(userId, id -> new Bucket());
+        }
+        return record(bucket.tryAcquire(authenticatedLimit, System.nanoTime()));
+    }
+
+    /**
+     * Takes a token for an anonymous client address, with the same result as
+     * {@link #tryAcquireForUser}.
+     */
+    public long tryAcquireForClient(String clientAddress) {
+        Bucket bucket = clientBuckets.getIfPresent(clientAddress);
+        if (bucket == null) {
+            bucket = clientBuckets.get(clientAddress, address -> new Bucket());
+        }
+        return record(bucket.tryAcquire(anonymousLimit, System.nanoTime()));
+    }
+
+    public Map<String, Object> getStats() {
+        long allowedCount = allowed.sum();
+        long rejectedCount = rejected.sum();
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("trackedClients", clientBuckets.estimatedSize());
+        stats.put("trackedUsers", userBuckets.estimatedSize());
+        stats.put("allowed", allowedCount);
+        stats.put("rejected", rejectedCount);
+        stats.put("rejectedRatio", allowedCount + rejectedCount == 0
+                ? 0.0
+                : (double) rejectedCount / (allowedCount + rejectedCount));
+        return stats;
+    }
+
+    private long record(long waitNanos) {
+        if (waitNanos == 0) {
+            allowed.increment();
+        } else {
+            rejected.increment();
+        }
+        return waitNanos;
+    }
+
+    /**
+     * Sustained rate and burst size, expressed as the time one token takes to refill and
+     * the time a full bucket takes to refill.
+     */
+    record Limit(long intervalNanos, long capacityNanos) {
+
+        Limit(int requestsPerMinute, int burst) {
+            this(TimeUnit.MINUTES.toNanos(1) / requestsPerMinute,
+                    TimeUnit.MINUTES.toNanos(1) / requestsPerMinute * burst);
+        }
+    }
+
+    static final class Bucket {
+
+        // Time at which the bucket is full again; anything in the past means full
+        private final AtomicLong fullAt = new AtomicLong(Long.MIN_VALUE);
+
+        long tryAcquire(Limit limit, long now) {
+            while (true) {
+                long current = fullAt.get();
+                long next = Math.max(current, now) + limit.intervalNanos();
+                long overflow = next - now - limit.capacityNanos();
+                if (overflow > 0) {
+                    return overflow;
+                }
+                if (fullAt.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+    }
+}
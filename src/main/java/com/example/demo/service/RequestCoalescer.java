@@ -0,0 +1,66 @@
+package com.example.demo.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight execution of identical upstream calls.
+ *
+ * The first caller for a key starts the call; callers arriving while it is still running
+ * attach to the same result. Every caller receives its own {@link CompletableFuture#copy()}
+ * so a caller that times out or cancels cannot complete or cancel the shared call, and the
+ * key is released as soon as the call settles, successfully or not.
+ */
+@Component
+public class RequestCoalescer {
+
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder leaders = new LongAdder();
+    private final LongAdder followers = new LongAdder();
+
+    public CompletableFuture<String> execute(String key, Supplier<CompletableFuture<String>> call) {
+        CompletableFuture<String> shared = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(key, shared);
+        if (existing != null) {
+            followers.increment();
+            return existing.copy();
+        }
+
+        leaders.increment();
+        try {
+            call.get().whenComplete((result, error) -> {
+                inFlight.remove(key, shared);
+                if (error != null) {
+                    shared.completeExceptionally(error);
+                } else {
+                    shared.complete(result);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, shared);
+            shared.completeExceptionally(e);
+        }
+        return shared.copy();
+    }
+
+    public Map<String, Object> getStats() {
+        long leaderCount = leaders.sum();
+        long followerCount = followers.sum();
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("inFlight", inFlight.size());
+        stats.put("upstreamCalls", leaderCount);
+        stats.put("coalescedCalls", followerCount);
+        stats.put("coalescedRatio", leaderCount + followerCount == 0
+                ? 0.0
+                : (double) followerCount / (leaderCount + followerCount));
+        return stats;
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.demo.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Cache of Groq answers for context-free (anonymous) prompts.
+ *
+ * Keys combine the normalized message with the detected sentiment and persona mode. Each
+ * key collects up to {@code variants} distinct answers before it starts serving hits, and
+ * a hit picks one of them at random so repeated prompts don't always read the same.
+ */
+@Component
+public class ResponseCache {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern TRAILING_PUNCTUATION = Pattern.compile("[\\p{Punct}\\s]+$");
+
+    @Value("${chat.response-cache.max-entries:5000}")
+    private long maxEntries;
+
+    @Value("${chat.response-cache.ttl-minutes:30}")
+    private long ttlMinutes;
+
+    @Value("${chat.response-cache.variants:3}")
+    private int variants;
+
+    private Cache<String, Entry> cache;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder savedLatencyNanos = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .build();
+    }
+
+    public static String key(String message, String sentiment, String mode) {
+        String normalized = WHITESPACE.matcher(message.trim().toLowerCase(Locale.ROOT)).replaceAll(" ");
+        normalized = TRAILING_PUNCTUATION.matcher(normalized).replaceAll("");
+        return sentiment + '|' + (mode == null ? "" : mode.toLowerCase(Locale.ROOT)) + '|' + normalized;
+    }
+
+    /**
+     * Returns a cached answer once the key has collected all its variants; until then
+     * every lookup counts as a miss so the caller fetches another variant.
+     */
+    public Optional<String> lookup(String key) {
+        Entry entry = cache.getIfPresent(key);
+        String response = entry == null ? null : entry.pick(variants);
+        if (response == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        savedLatencyNanos.add(entry.averageLatencyNanos());
+        return Optional.of(response);
+    }
+
+    public void store(String key, String response, long upstreamLatencyNanos) {
+        cache.asMap()
+                .computeIfAbsent(key, k -> new Entry())
+                .add(response, upstreamLatencyNanos, variants);
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("entries", cache.estimatedSize());
+        stats.put("hits", hitCount);
+        stats.put("misses", total - hitCount);
+        stats.put("hitRate", total == 0 ? 0.0 : (double) hitCount / total);
+        stats.put("savedGroqMillis", savedLatencyNanos.sum() / 1_000_000);
+        return stats;
+    }
+
+    private static final class Entry {
+
+        private final List<String> responses = new ArrayList<>();
+        private int samples;
+        private long latencySumNanos;
+
+        private synchronized void add(String response, long latencyNanos, int maxVariants) {
+            if (samples >= maxVariants) {
+                return;
+            }
+            samples++;
+            latencySumNanos += latencyNanos;
+            // Identical answers count as a sample but are kept once
+            if (!responses.contains(response)) {
+                responses.add(response);
+            }
+        }
+
+        private synchronized String pick(int requiredVariants) {
+            if (samples < requiredVariants) {
+                return null;
+            }
+            return responses.get(ThreadLocalRandom.current().nextInt(responses.size()));
+        }
+
+        private synchronized long averageLatencyNanos() {
+            return samples == 0 ? 0 : latencySumNanos / samples;
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.example.demo.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+
+/**
+ * Lexicon-based sentiment classifier.
+ *
+ * The configured terms are compiled once into an Aho-Corasick automaton, so a message is
+ * classified in a single left-to-right scan no matter how large the lexicon is. Terms only
+ * match whole words ("bad" does not fire inside "badminton"), may carry a weight
+ * ({@code term:weight}) and flip polarity when a negation appears shortly before them.
+ */
+@Component
+public class SentimentEngine {
+
+    public static final String POSITIVE = "POSITIVE";
+    public static final String NEGATIVE = "NEGATIVE";
+    public static final String NEUTRAL = "NEUTRAL";
+
+    // Symbols: 'a'..'z' = 0..25, apostrophe = 26, word separator = 27
+    private static final int ALPHABET = 28;
+    private static final int APOSTROPHE = 26;
+    private static final int SEPARATOR = 27;
+
+    private static final double NEGATION_MARKER = Double.NaN;
+
+    private static final byte[] ASCII_SYMBOLS = new byte[128];
+
+    static {
+        Arrays.fill(ASCII_SYMBOLS, (byte) SEPARATOR);
+        for (char c = 'a'; c <= 'z'; c++) {
+            ASCII_SYMBOLS[c] = (byte) (c - 'a');
+            ASCII_SYMBOLS[Character.toUpperCase(c)] = (byte) (c - 'a');
+        }
+        ASCII_SYMBOLS['\''] = APOSTROPHE;
+    }
+
+    @Value("${sentiment.lexicon.positive}")
+    private List<String> positiveTerms;
+
+    @Value("${sentiment.lexicon.negative}")
+    private List<String> negativeTerms;
+
+    @Value("${sentiment.lexicon.negations}")
+    private List<String> negationTerms;
+
+    @Value("${sentiment.negation-window:3}")
+    private int negationWindow;
+
+    // Full DFA, row-major: transitions[state * ALPHABET + symbol]
+    private int[] transitions;
+    private double[] weights;
+    private int[] wordCounts;
+    private int[] outputLinks;
+
+    /**
+     * Label plus the signed sum of matched term weights.
+     */
+    public record SentimentResult(String label, double score) {
+    }
+
+    @PostConstruct
+    void compile() {
+        List<int[]> gotoTable = new ArrayList<>();
+        List<Double> nodeWeights = new ArrayList<>();
+        List<Integer> nodeWords = new ArrayList<>();
+        gotoTable.add(newNode());
+        nodeWeights.add(0.0);
+        nodeWords.add(0);
+
+        for (String entry : positiveTerms) {
+            addTerm(entry, 1.0, gotoTable, nodeWeights, nodeWords);
+        }
+        for (String entry : negativeTerms) {
+            addTerm(entry, -1.0, gotoTable, nodeWeights, nodeWords);
+        }
+        for (String entry : negationTerms) {
+            addTerm(entry, NEGATION_MARKER, gotoTable, nodeWeights, nodeWords);
+        }
+
+        int size = gotoTable.size();
+        int[][] table = gotoTable.toArray(new int[0][]);
+        weights = new double[size];
+        wordCounts = new int[size];
+        for (int i = 0; i < size; i++) {
+            Double weight = nodeWeights.get(i);
+            weights[i] = weight == null ? 0.0 : weight;
+            wordCounts[i] = nodeWords.get(i);
+        }
+
+        // Breadth-first construction of failure links, folded into a full transition table
+        int[] failure = new int[size];
+        outputLinks = new int[size];
+        Arrays.fill(outputLinks, -1);
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int symbol = 0; symbol < ALPHABET; symbol++) {
+            int child = table[0][symbol];
+            if (child == -1) {
+                table[0][symbol] = 0;
+            } else {
+                failure[child] = 0;
+                queue.add(child);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (int symbol = 0; symbol < ALPHABET; symbol++) {
+                int child = table[node][symbol];
+                if (child == -1) {
+                    table[node][symbol] = table[failure[node]][symbol];
+                    continue;
+                }
+                int fallback = table[failure[node]][symbol];
+                failure[child] = fallback;
+                outputLinks[child] = isTerminal(fallback) ? fallback : outputLinks[fallback];
+                queue.add(child);
+            }
+        }
+
+        transitions = new int[size * ALPHABET];
+        for (int node = 0; node < size; node++) {
+            System.arraycopy(table[node], 0, transitions, node * ALPHABET, ALPHABET);
+        }
+    }
+
+    public SentimentResult analyze(String text) {
+        if (text == null || text.isBlank()) {
+            return new SentimentResult(NEUTRAL, 0.0);
+        }
+
+        double score = 0.0;
+        int state = transitions[SEPARATOR];
+        int words = 0;
+        int negatedUntil = -1;
+        boolean lastWasSeparator = true;
+
+        // The text is scanned as if wrapped in separators so every term is matched as
+        // " term " and can never start or end in the middle of a word.
+        int length = text.length();
+        for (int i = 0; i <= length; i++) {
+            int symbol;
+            boolean clauseEnd = false;
+            if (i == length) {
+                symbol = SEPARATOR;
+            } else {
+                char c = text.charAt(i);
+                if (c < 128) {
+                    symbol = ASCII_SYMBOLS[c];
+                    clauseEnd = c == '.' || c == ',' || c == '!' || c == '?' || c == ';';
+                } else {
+                    symbol = c == '’' ? APOSTROPHE : SEPARATOR;
+                }
+            }
+
+            if (symbol == SEPARATOR) {
+                if (lastWasSeparator) {
+                    if (clauseEnd) {
+                        negatedUntil = -1;
+                    }
+                    continue;
+                }
+                words++;
+                lastWasSeparator = true;
+            } else {
+                lastWasSeparator = false;
+            }
+
+            state = transitions[state * ALPHABET + symbol];
+            if (symbol == SEPARATOR) {
+                for (int match = isTerminal(state) ? state : outputLinks[state]; match != -1; match = outputLinks[match]) {
+                    double weight = weights[match];
+                    if (Double.isNaN(weight)) {
+                        negatedUntil = words + negationWindow;
+                    } else {
+                        int firstWord = words - wordCounts[match] + 1;
+                        score += firstWord <= negatedUntil ? -weight : weight;
+                    }
+                }
+                if (clauseEnd) {
+                    negatedUntil = -1;
+                }
+            }
+        }
+
+        if (score > 0) {
+            return new SentimentResult(POSITIVE, score);
+        } else if (score < 0) {
+            return new SentimentResult(NEGATIVE, score);
+        }
+        return new SentimentResult(NEUTRAL, 0.0);
+    }
+
+    private boolean isTerminal(int node) {
+        return wordCounts[node] > 0;
+    }
+
+    private static int[] newNode() {
+        int[] node = new int[ALPHABET];
+        Arrays.fill(node, -1);
+        return node;
+    }
+
+    private static void addTerm(String entry, double polarity, List<int[]> gotoTable,
+                                List<Double> nodeWeights, List<Integer> nodeWords) {
+        String term = entry.trim().toLowerCase(Locale.ROOT);
+        double weight = 1.0;
+        int separator = term.lastIndexOf(':');
+        if (separator > 0) {
+            weight = Double.parseDouble(term.substring(separator + 1).trim());
+            term = term.substring(0, separator).trim();
+        }
+        if (term.isEmpty()) {
+            return;
+        }
+
+        String[] termWords = term.split("\\s+");
+        String normalized = " " + String.join(" ", termWords) + " ";
+
+        int node = 0;
+        for (int i = 0; i < normalized.length(); i++) {
+            int symbol = symbolOf(normalized.charAt(i));
+            if (symbol == -1) {
+                throw new IllegalArgumentException("Unsupported character in sentiment term: " + entry);
+            }
+            int next = gotoTable.get(node)[symbol];
+            if (next == -1) {
+                next = gotoTable.size();
+                gotoTable.get(node)[symbol] = next;
+                gotoTable.add(newNode());
+                nodeWeights.add(0.0);
+                nodeWords.add(0);
+            }
+            node = next;
+        }
+        nodeWeights.set(node, Double.isNaN(polarity) ? NEGATION_MARKER : polarity * weight);
+        nodeWords.set(node, termWords.length);
+    }
+
+    private static int symbolOf(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a';
+        } else if (c == '\'') {
+            return APOSTROPHE;
+        } else if (c == ' ') {
+            return SEPARATOR;
+        }
+        return -1;
+    }
+}
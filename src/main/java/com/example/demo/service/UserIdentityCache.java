@@ -0,0 +1,71 @@
+package com.example.demo.service;
+
+import com.example.demo.model.User;
+import com.example.demo.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Small cache of user id, email and role, so authenticated requests can confirm the user
+ * still exists without a query each time. Disabled users are cached as absent. Entries are
+ * dropped when a user is disabled or deleted; other nodes notice within
+ * {@code auth.identity-cache.ttl-minutes}.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserIdentityCache {
+
+    @Value("${auth.identity-cache.max-entries:10000}")
+    private long maxEntries;
+
+    @Value("${auth.identity-cache.ttl-minutes:10}")
+    private long ttlMinutes;
+
+    private final UserRepository userRepository;
+
+    private Cache<Long, Optional<AuthenticatedUser>> byId;
+    private Cache<String, Optional<AuthenticatedUser>> byEmail;
+
+    @PostConstruct
+    void init() {
+        byId = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .build();
+        byEmail = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .build();
+    }
+
+    public Optional<AuthenticatedUser> findById(Long userId) {
+        return byId.get(userId, id -> userRepository.findById(id)
+                .filter(user -> !user.isDisabled())
+                .map(UserIdentityCache::toIdentity));
+    }
+
+    /**
+     * Lookup for tokens that predate the user id claim.
+     */
+    public Optional<AuthenticatedUser> findByEmail(String email) {
+        return byEmail.get(email, key -> userRepository.findByEmail(key)
+                .filter(user -> !user.isDisabled())
+                .map(UserIdentityCache::toIdentity));
+    }
+
+    public void evict(Long userId) {
+        byId.invalidate(userId);
+        byEmail.asMap().values().removeIf(identity -> identity.isPresent() && identity.get().id().equals(userId));
+    }
+
+    private static AuthenticatedUser toIdentity(User user) {
+        return new AuthenticatedUser(user.getId(), user.getEmail(), user.getRole().name());
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.UserPurgeStatus;
+import com.example.demo.repository.ChatPartitionRepository;
+import com.example.demo.repository.UserPurgeRepository;
+import com.example.demo.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes users in the background.
+ *
+ * A user's chats go in chunks of {@code admin.purge.chunk-size}, each a single
+ * {@code DELETE ... RETURNING} that also subtracts the chunk from the daily rollups and
+ * commits on its own, so no transaction grows with the user's history and nothing is
+ * loaded into the persistence context. Archived month tables left by partition retention
+ * are purged first, then {@code chats}. A final transaction locks the user row, deletes
+ * whatever chats arrived meanwhile and deletes the user, so a late insert cannot make the
+ * user delete fail. Chunks already committed stay deleted if a purge fails; submitting it again
+ * resumes where it stopped.
+ *
+ * Before the first chunk the user is marked disabled and their cached identity,
+ * conversation memory and timeline are evicted: from then on logins fail and outstanding
+ * tokens are rejected by this node, and by other nodes once their identity cache entry
+ * expires. Caches are evicted again when the purge ends.
+ * Jobs run one at a time; their status is kept for {@code admin.purge.job-ttl-hours}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UserPurgeService {
+
+    public static final String QUEUED = "QUEUED";
+    public static final String RUNNING = "RUNNING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+
+    private static final String CHATS = "chats";
+
+    @Value("${admin.purge.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${admin.purge.chunk-pause-ms:0}")
+    private long chunkPauseMs;
+
+    @Value("${admin.purge.job-ttl-hours:24}")
+    private long jobTtlHours;
+
+    private final UserPurgeRepository userPurgeRepository;
+    private final ChatPartitionRepository chatPartitionRepository;
+    private final UserRepository userRepository;
+    private final UserIdentityCache userIdentityCache;
+    private final ConversationStore conversationStore;
+    private final MoodTimelineService moodTimelineService;
+    private final TransactionTemplate transactionTemplate;
+
+    private ExecutorService executor;
+    private Cache<String, Job> jobs;
+    // Unfinished job per user, so a repeated delete returns the running purge
+    private final Map<Long, Job> activeByUser = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "user-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        jobs = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofHours(jobTtlHours))
+                .build();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        // Interrupts between chunks; an unfinished purge resumes when submitted again
+        executor.shutdownNow();
+    }
+
+    public UserPurgeStatus submit(Long userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found");
+        }
+        Job job = activeByUser.computeIfAbsent(userId, id -> {
+            Job created = new Job(UUID.randomUUID().toString(), id);
+            executor.execute(() -> run(created));
+            jobs.put(created.jobId, created);
+            return created;
+        });
+        return job.snapshot();
+    }
+
+    public UserPurgeStatus getStatus(String jobId) {
+        Job job = jobs.getIfPresent(jobId);
+        if (job == null) {
+            throw new RuntimeException("Purge job not found");
+        }
+        return job.snapshot();
+    }
+
+    public List<UserPurgeStatus> getRecent() {
+        return jobs.asMap().values().stream()
+                .map(Job::snapshot)
+                .sorted(Comparator.comparing(UserPurgeStatus::getSubmittedAt).reversed())
+                .toList();
+    }
+
+    private void run(Job job) {
+        job.state = RUNNING;
+        try {
+            transactionTemplate.execute(status -> userPurgeRepository.disableUser(job.userId));
+            evictCaches(job.userId);
+
+            List<String> archives = chatPartitionRepository.findArchivedTables();
+            long total = userPurgeRepository.countChats(CHATS, job.userId);
+            for (String archive : archives) {
+                total += userPurgeRepository.countChats(archive, job.userId);
+            }
+            job.chatsTotal = total;
+
+            for (String archive : archives) {
+                deleteInChunks(job, archive);
+            }
+            deleteInChunks(job, CHATS);
+
+            job.chatsDeleted += transactionTemplate.execute(status -> {
+                userPurgeRepository.lockUser(job.userId);
+                long stragglers = userPurgeRepository.deleteChatChunk(CHATS, job.userId, Integer.MAX_VALUE);
+                userPurgeRepository.deleteUser(job.userId);
+                return stragglers;
+            });
+
+            job.state = COMPLETED;
+            log.info("Purged user {}: {} chats", job.userId, job.chatsDeleted);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(job, "Interrupted by shutdown");
+        } catch (RuntimeException e) {
+            log.error("Purge of user {} failed after {} chats", job.userId, job.chatsDeleted, e);
+            fail(job, e.getMessage());
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+            evictCaches(job.userId);
+            activeByUser.remove(job.userId, job);
+            // Refreshes the TTL so finished jobs stay visible for the full period
+            jobs.put(job.jobId, job);
+        }
+    }
+
+    private void deleteInChunks(Job job, String table) throws InterruptedException {
+        long deleted;
+        do {
+            deleted = transactionTemplate.execute(
+                    status -> userPurgeRepository.deleteChatChunk(table, job.userId, chunkSize));
+            job.chatsDeleted += deleted;
+            if (deleted == chunkSize && chunkPauseMs > 0) {
+                TimeUnit.MILLISECONDS.sleep(chunkPauseMs);
+            }
+        } while (deleted == chunkSize);
+    }
+
+    private void fail(Job job, String error) {
+        job.state = FAILED;
+        job.error = error;
+    }
+
+    private void evictCaches(Long userId) {
+        userIdentityCache.evict(userId);
+        conversationStore.evict(userId);
+        moodTimelineService.invalidate(userId);
+    }
+
+    private static final class Job {
+        private final String jobId;
+        private final Long userId;
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+        private volatile String state = QUEUED;
+        private volatile long chatsDeleted;
+        private volatile long chatsTotal;
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+
+        private Job(String jobId, Long userId) {
+            this.jobId = jobId;
+            this.userId = userId;
+        }
+
+        private UserPurgeStatus snapshot() {
+            return UserPurgeStatus.builder()
+                    .jobId(jobId)
+                    .userId(userId)
+                    .state(state)
+                    .chatsDeleted(chatsDeleted)
+                    .chatsTotal(chatsTotal)
+                    .submittedAt(submittedAt)
+                    .finishedAt(finishedAt)
+                    .error(error)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+-- Schema as Hibernate's ddl-auto=update produced it before migrations took over, and
+-- nothing newer: databases that already have these tables are baselined at this version
+-- and skip it, so every later table belongs in a migration above it.
+
+CREATE TABLE users (
+    id         bigint       GENERATED BY DEFAULT AS IDENTITY,
+    email      varchar(255) NOT NULL UNIQUE,
+    password   varchar(255) NOT NULL,
+    full_name  varchar(255),
+    role       varchar(255) CHECK (role IN ('USER', 'ADMIN')),
+    created_at timestamp(6),
+    updated_at timestamp(6),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE chats (
+    id           bigint       GENERATED BY DEFAULT AS IDENTITY,
+    user_id      bigint,
+    message      text         NOT NULL,
+    response     text         NOT NULL,
+    sentiment    varchar(255),
+    mood_score   float(53),
+    is_anonymous boolean,
+    created_at   timestamp(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_chats_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
@@ -0,0 +1,74 @@
+-- Range-partitions chats by month of created_at. Queries bounded in time only touch the
+-- months they cover, and retention drops whole partitions instead of deleting rows.
+--
+-- The primary key of a partitioned table must contain the partition key, so it becomes
+-- (id, created_at); ids stay unique because they only ever come from chats_id_seq.
+-- Existing rows are copied inside this migration's transaction.
+
+-- Detach chats_id_seq from the old table so it survives the drop below. Databases created
+-- while chats.id was an IDENTITY (or serial) column own the sequence through that column.
+DO $$
+DECLARE
+    last_id bigint;
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_schema = current_schema() AND table_name = 'chats'
+                 AND column_name = 'id' AND is_identity = 'YES') THEN
+        SELECT GREATEST(last_value, (SELECT COALESCE(MAX(id), 0) FROM chats), 1) INTO last_id FROM chats_id_seq;
+        ALTER TABLE chats ALTER COLUMN id DROP IDENTITY;
+        CREATE SEQUENCE chats_id_seq START WITH 1 INCREMENT BY 50;
+        -- The next value reserves the block right above every id handed out so far
+        PERFORM setval('chats_id_seq', last_id);
+    ELSE
+        ALTER TABLE chats ALTER COLUMN id DROP DEFAULT;
+        ALTER SEQUENCE chats_id_seq OWNED BY NONE;
+        ALTER SEQUENCE chats_id_seq INCREMENT BY 50;
+    END IF;
+END $$;
+
+CREATE TABLE chats_partitioned (
+    id           bigint       NOT NULL,
+    user_id      bigint,
+    message      text         NOT NULL,
+    response     text         NOT NULL,
+    sentiment    varchar(255),
+    mood_score   float(53),
+    is_anonymous boolean,
+    created_at   timestamp(6) NOT NULL,
+    CONSTRAINT pk_chats PRIMARY KEY (id, created_at),
+    CONSTRAINT fk_chats_user_partitioned FOREIGN KEY (user_id) REFERENCES users (id)
+) PARTITION BY RANGE (created_at);
+
+-- One partition per month from the oldest chat to three months ahead; the application
+-- keeps creating months ahead (ChatPartitionMaintenance). Partition names must stay
+-- chats_pYYYY_MM, retention reads the month from them.
+DO $$
+DECLARE
+    bound date;
+    last_bound date := date_trunc('month', LOCALTIMESTAMP) + interval '3 months';
+BEGIN
+    SELECT date_trunc('month', COALESCE(MIN(created_at), LOCALTIMESTAMP)) INTO bound FROM chats;
+    WHILE bound <= last_bound LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF chats_partitioned FOR VALUES FROM (%L) TO (%L)',
+                       'chats_p' || to_char(bound, 'YYYY_MM'), bound, (bound + interval '1 month')::date);
+        bound := bound + interval '1 month';
+    END LOOP;
+END $$;
+
+-- Catches rows outside every month partition instead of failing the insert. It should
+-- stay empty: a month cannot be added while the default holds rows for it.
+CREATE TABLE chats_default PARTITION OF chats_partitioned DEFAULT;
+
+INSERT INTO chats_partitioned (id, user_id, message, response, sentiment, mood_score, is_anonymous, created_at)
+SELECT id, user_id, message, response, sentiment, mood_score, is_anonymous, COALESCE(created_at, LOCALTIMESTAMP)
+FROM chats;
+
+DROP TABLE chats;
+ALTER TABLE chats_partitioned RENAME TO chats;
+ALTER TABLE chats RENAME CONSTRAINT fk_chats_user_partitioned TO fk_chats_user;
+
+-- Indexes are created on every partition. (user_id, created_at, id) serves history pages,
+-- timelines and per-user analytics; (created_at, id) serves the admin listing, exports and
+-- rollup backfills. Lookups by id use the primary key of each partition.
+CREATE INDEX idx_chats_user_created ON chats (user_id, created_at, id);
+CREATE INDEX idx_chats_created ON chats (created_at, id);
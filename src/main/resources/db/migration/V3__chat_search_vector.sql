@@ -0,0 +1,14 @@
+-- Full-text search over a user's chats. The tsvector is a stored generated column, so
+-- every insert path (JPA, write-behind batches) keeps it in sync without application
+-- code; messages weigh more than responses when ranking.
+ALTER TABLE chats ADD COLUMN search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('english', coalesce(message, '')), 'A')
+            || setweight(to_tsvector('english', coalesce(response, '')), 'B')
+    ) STORED;
+
+-- btree_gin lets user_id share the GIN index, so a search only visits the entries of the
+-- searching user instead of every match in the table
+CREATE EXTENSION IF NOT EXISTS btree_gin;
+
+CREATE INDEX idx_chats_user_search ON chats USING GIN (user_id, search_vector);
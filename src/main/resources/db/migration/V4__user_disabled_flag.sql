@@ -0,0 +1,3 @@
+-- Set when a purge starts, so the user can no longer sign in or use outstanding tokens
+-- while their chats are being deleted.
+ALTER TABLE users ADD COLUMN disabled boolean NOT NULL DEFAULT false;
@@ -0,0 +1,9 @@
+-- Rolling conversation summaries, one per user, so a summary survives cache eviction and
+-- restarts. Rows go with their user.
+CREATE TABLE conversation_summaries (
+    user_id    bigint       NOT NULL,
+    summary    text         NOT NULL,
+    updated_at timestamp(6) NOT NULL,
+    PRIMARY KEY (user_id),
+    CONSTRAINT fk_conversation_summaries_user FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE
+);
@@ -0,0 +1,9 @@
+-- Per-day, per-sentiment chat counts (ChatDailyRollup). Databases that ran under
+-- ddl-auto=update after rollups were introduced already have the table.
+CREATE TABLE IF NOT EXISTS chat_daily_rollups (
+    rollup_date    date        NOT NULL,
+    sentiment      varchar(16) NOT NULL,
+    chat_count     bigint      NOT NULL,
+    mood_score_sum float(53)   NOT NULL,
+    PRIMARY KEY (rollup_date, sentiment)
+);
@@ -0,0 +1,41 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ChatExportServiceTest {
+
+    @Test
+    void plainFieldsAreWrittenAsIs() throws IOException {
+        assertEquals("feeling fine today", csv("feeling fine today"));
+        assertEquals("it's ok; really", csv("it's ok; really"));
+    }
+
+    @Test
+    void nullIsAnEmptyField() throws IOException {
+        assertEquals("", csv(null));
+    }
+
+    @Test
+    void fieldsWithSeparatorsOrLineBreaksAreQuoted() throws IOException {
+        assertEquals("\"tired, but ok\"", csv("tired, but ok"));
+        assertEquals("\"line one\nline two\"", csv("line one\nline two"));
+        assertEquals("\"carriage\rreturn\"", csv("carriage\rreturn"));
+    }
+
+    @Test
+    void embeddedQuotesAreDoubled() throws IOException {
+        assertEquals("\"she said \"\"hi\"\"\"", csv("she said \"hi\""));
+        assertEquals("\"\"\"\"", csv("\""));
+    }
+
+    private static String csv(String value) throws IOException {
+        StringWriter writer = new StringWriter();
+        ChatExportService.writeCsvField(writer, value);
+        return writer.toString();
+    }
+}
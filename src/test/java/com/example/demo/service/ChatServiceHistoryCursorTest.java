@@ -0,0 +1,54 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ChatServiceHistoryCursorTest {
+
+    @Test
+    void roundTripsPosition() {
+        ChatService.HistoryCursor cursor = new ChatService.HistoryCursor(
+                LocalDateTime.of(2024, 3, 9, 17, 45, 12, 123_456_000), 4242L);
+
+        assertEquals(cursor, ChatService.HistoryCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void encodesAsUrlSafeTokenWithoutPadding() {
+        String encoded = new ChatService.HistoryCursor(LocalDateTime.of(2024, 1, 1, 0, 0), 1L).encode();
+
+        assertFalse(encoded.contains("+") || encoded.contains("/") || encoded.contains("="));
+    }
+
+    @Test
+    void rejectsMalformedCursors() {
+        assertInvalid("not base64!");
+        assertInvalid("");
+        assertInvalid(encode("2024-01-01T00:00"));
+        assertInvalid(encode("|17"));
+    }
+
+    @Test
+    void rejectsTamperedCursors() {
+        assertInvalid(encode("2024-13-01T00:00|17"));
+        assertInvalid(encode("2024-01-01T00:00|17; DROP TABLE chats"));
+        assertInvalid(encode("2024-01-01T00:00|"));
+        assertInvalid(encode("yesterday|17"));
+    }
+
+    private static void assertInvalid(String cursor) {
+        RuntimeException error = assertThrows(RuntimeException.class, () -> ChatService.HistoryCursor.decode(cursor));
+        assertEquals("Invalid cursor", error.getMessage());
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    // One token per second, up to three at once
+    private final RateLimiter.Limit limit = new RateLimiter.Limit(60, 3);
+
+    @Test
+    void fullBucketAllowsTheBurstThenReportsTheWait() {
+        RateLimiter.Bucket bucket = new RateLimiter.Bucket();
+
+        assertEquals(0, bucket.tryAcquire(limit, 0));
+        assertEquals(0, bucket.tryAcquire(limit, 0));
+        assertEquals(0, bucket.tryAcquire(limit, 0));
+        assertEquals(SECOND, bucket.tryAcquire(limit, 0));
+        assertEquals(SECOND / 2, bucket.tryAcquire(limit, SECOND / 2));
+    }
+
+    @Test
+    void rejectedRequestsDoNotConsumeTokens() {
+        RateLimiter.Bucket bucket = new RateLimiter.Bucket();
+        for (int i = 0; i < 3; i++) {
+            bucket.tryAcquire(limit, 0);
+        }
+        for (int i = 0; i < 10; i++) {
+            assertTrue(bucket.tryAcquire(limit, 0) > 0);
+        }
+
+        assertEquals(0, bucket.tryAcquire(limit, SECOND));
+    }
+
+    @Test
+    void refillsOneTokenPerInterval() {
+        RateLimiter.Bucket bucket = new RateLimiter.Bucket();
+        for (int i = 0; i < 3; i++) {
+            bucket.tryAcquire(limit, 0);
+        }
+
+        assertEquals(0, bucket.tryAcquire(limit, SECOND));
+        assertEquals(SECOND, bucket.tryAcquire(limit, SECOND));
+        assertEquals(0, bucket.tryAcquire(limit, 3 * SECOND));
+        assertEquals(0, bucket.tryAcquire(limit, 3 * SECOND));
+        assertEquals(SECOND, bucket.tryAcquire(limit, 3 * SECOND));
+    }
+
+    @Test
+    void idleBucketRefillsToTheBurstButNoFurther() {
+        RateLimiter.Bucket bucket = new RateLimiter.Bucket();
+        bucket.tryAcquire(limit, 0);
+
+        long later = 100 * SECOND;
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, bucket.tryAcquire(limit, later));
+        }
+        assertEquals(SECOND, bucket.tryAcquire(limit, later));
+    }
+
+    @Test
+    void usersAndClientsHaveSeparateBuckets() {
+        RateLimiter rateLimiter = new RateLimiter();
+        ReflectionTestUtils.setField(rateLimiter, "anonymousPerMinute", 1);
+        ReflectionTestUtils.setField(rateLimiter, "anonymousBurst", 1);
+        ReflectionTestUtils.setField(rateLimiter, "authenticatedPerMinute", 1);
+        ReflectionTestUtils.setField(rateLimiter, "authenticatedBurst", 2);
+        ReflectionTestUtils.setField(rateLimiter, "idleExpiryMinutes", 10L);
+        ReflectionTestUtils.setField(rateLimiter, "maxKeys", 100L);
+        rateLimiter.init();
+
+        assertEquals(0, rateLimiter.tryAcquireForUser(1L));
+        assertEquals(0, rateLimiter.tryAcquireForUser(1L));
+        assertTrue(rateLimiter.tryAcquireForUser(1L) > 0);
+        assertEquals(0, rateLimiter.tryAcquireForUser(2L));
+
+        assertEquals(0, rateLimiter.tryAcquireForClient("10.0.0.1"));
+        assertTrue(rateLimiter.tryAcquireForClient("10.0.0.1") > 0);
+        assertEquals(0, rateLimiter.tryAcquireForClient("10.0.0.2"));
+
+        assertEquals(5L, rateLimiter.getStats().get("allowed"));
+        assertEquals(2L, rateLimiter.getStats().get("rejected"));
+    }
+}
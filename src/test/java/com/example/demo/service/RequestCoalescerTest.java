@@ -0,0 +1,109 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class RequestCoalescerTest {
+
+    private final RequestCoalescer coalescer = new RequestCoalescer();
+
+    @Test
+    void concurrentCallersShareOneUpstreamCall() throws Exception {
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+
+        CompletableFuture<String> leader = coalescer.execute("key", () -> upstream);
+        CompletableFuture<String> follower = coalescer.execute("key", () -> fail("second upstream call"));
+        upstream.complete("reply");
+
+        assertEquals("reply", leader.get());
+        assertEquals("reply", follower.get());
+        assertEquals(1L, coalescer.getStats().get("upstreamCalls"));
+        assertEquals(1L, coalescer.getStats().get("coalescedCalls"));
+    }
+
+    @Test
+    void failuresReachEveryCaller() {
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+        IllegalStateException error = new IllegalStateException("upstream down");
+
+        CompletableFuture<String> leader = coalescer.execute("key", () -> upstream);
+        CompletableFuture<String> follower = coalescer.execute("key", () -> fail("second upstream call"));
+        upstream.completeExceptionally(error);
+
+        assertSame(error, assertThrows(ExecutionException.class, leader::get).getCause());
+        assertSame(error, assertThrows(ExecutionException.class, follower::get).getCause());
+    }
+
+    @Test
+    void keyIsReleasedOnceTheCallSettles() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<String> first = new CompletableFuture<>();
+
+        coalescer.execute("key", () -> {
+            calls.incrementAndGet();
+            return first;
+        });
+        first.completeExceptionally(new IllegalStateException("boom"));
+        assertEquals(0, coalescer.getStats().get("inFlight"));
+
+        CompletableFuture<String> retry = coalescer.execute("key", () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("fresh");
+        });
+
+        assertEquals("fresh", retry.get());
+        assertEquals(2, calls.get());
+        assertEquals(0, coalescer.getStats().get("inFlight"));
+    }
+
+    @Test
+    void supplierThrowingFailsTheCallAndReleasesTheKey() throws Exception {
+        CompletableFuture<String> failed = coalescer.execute("key", () -> {
+            throw new IllegalArgumentException("bad request");
+        });
+
+        assertTrue(failed.isCompletedExceptionally());
+        assertEquals(0, coalescer.getStats().get("inFlight"));
+        assertEquals("ok", coalescer.execute("key", () -> CompletableFuture.completedFuture("ok")).get());
+    }
+
+    @Test
+    void cancellingOneCallerLeavesTheSharedCallRunning() throws Exception {
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+
+        CompletableFuture<String> leader = coalescer.execute("key", () -> upstream);
+        CompletableFuture<String> follower = coalescer.execute("key", () -> fail("second upstream call"));
+        leader.cancel(true);
+        upstream.complete("reply");
+
+        assertFalse(upstream.isCancelled());
+        assertEquals("reply", follower.get());
+    }
+
+    @Test
+    void differentKeysDoNotCoalesce() {
+        AtomicInteger calls = new AtomicInteger();
+
+        coalescer.execute("a", () -> {
+            calls.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+        coalescer.execute("b", () -> {
+            calls.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+
+        assertEquals(2, calls.get());
+        assertEquals(2, coalescer.getStats().get("inFlight"));
+    }
+}
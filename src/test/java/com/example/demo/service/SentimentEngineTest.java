@@ -0,0 +1,84 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SentimentEngineTest {
+
+    private static SentimentEngine engine(int negationWindow) {
+        SentimentEngine engine = new SentimentEngine();
+        ReflectionTestUtils.setField(engine, "positiveTerms", List.of("happy", "good", "very happy:2", "calm"));
+        ReflectionTestUtils.setField(engine, "negativeTerms", List.of("sad", "bad", "awful:3", "fed up"));
+        ReflectionTestUtils.setField(engine, "negationTerms", List.of("not", "don't", "never"));
+        ReflectionTestUtils.setField(engine, "negationWindow", negationWindow);
+        engine.compile();
+        return engine;
+    }
+
+    @Test
+    void blankTextIsNeutral() {
+        SentimentEngine engine = engine(3);
+
+        assertEquals(new SentimentEngine.SentimentResult(SentimentEngine.NEUTRAL, 0.0), engine.analyze(null));
+        assertEquals(new SentimentEngine.SentimentResult(SentimentEngine.NEUTRAL, 0.0), engine.analyze("   "));
+    }
+
+    @Test
+    void matchesWholeWordsOnly() {
+        SentimentEngine engine = engine(3);
+
+        assertEquals(SentimentEngine.NEUTRAL, engine.analyze("Badminton after school").label());
+        assertEquals(SentimentEngine.NEUTRAL, engine.analyze("unhappy? goodness, sadly").label());
+        assertEquals(-1.0, engine.analyze("That was BAD").score());
+    }
+
+    @Test
+    void matchesOverlappingTermsAndPhrasesInOneScan() {
+        SentimentEngine engine = engine(3);
+
+        // "very happy" and its suffix "happy" both fire
+        assertEquals(3.0, engine.analyze("I am very happy today").score());
+        assertEquals(-1.0, engine.analyze("so   fed\tup with this").score());
+    }
+
+    @Test
+    void weightedTermsScaleTheScore() {
+        SentimentEngine engine = engine(3);
+
+        SentimentEngine.SentimentResult result = engine.analyze("good but awful");
+
+        assertEquals(SentimentEngine.NEGATIVE, result.label());
+        assertEquals(-2.0, result.score());
+    }
+
+    @Test
+    void negationFlipsTermsWithinTheWindow() {
+        SentimentEngine engine = engine(3);
+
+        assertEquals(-1.0, engine.analyze("I am not happy").score());
+        assertEquals(1.0, engine.analyze("never really that sad").score());
+        // Curly apostrophes are read as straight ones
+        assertEquals(-1.0, engine.analyze("I don’t feel good").score());
+    }
+
+    @Test
+    void negationExpiresAfterTheWindow() {
+        SentimentEngine engine = engine(1);
+
+        assertEquals(-1.0, engine.analyze("not happy").score());
+        assertEquals(1.0, engine.analyze("not at all what I thought, happy").score());
+        assertEquals(1.0, engine.analyze("not that I mind happy").score());
+    }
+
+    @Test
+    void clausePunctuationEndsNegation() {
+        SentimentEngine engine = engine(3);
+
+        assertEquals(2.0, engine.analyze("not sad, just calm").score());
+        assertEquals(0.0, engine.analyze("not bad. bad").score());
+    }
+}